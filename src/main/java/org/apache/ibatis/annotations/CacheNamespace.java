@@ -39,6 +39,18 @@ public @interface CacheNamespace {
 
   long flushInterval() default 0;
 
+  /**
+   * Time to live of each entry in milliseconds, 0 for none.
+   * @see org.apache.ibatis.cache.decorators.ExpiringCache
+   */
+  long timeToLive() default 0;
+
+  /**
+   * Time to live of selects that returned nothing in milliseconds, 0 to cache them as any other result.
+   * @see org.apache.ibatis.cache.decorators.NegativeResultCache
+   */
+  long negativeTimeToLive() default 0;
+
   int size() default 1024;
 
   boolean readWrite() default true;
@@ -33,4 +33,14 @@ public @interface Many {
 
   FetchType fetchType() default FetchType.DEFAULT;
 
+  /**
+   * The statement loading the results of all the rows at once, given the list of their keys.
+   */
+  String batchSelect() default "";
+
+  /**
+   * The property of each result of the batch select holding the key of the row it belongs to.
+   */
+  String batchKey() default "";
+
 }
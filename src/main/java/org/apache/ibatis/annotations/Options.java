@@ -46,6 +46,18 @@ public @interface Options {
 
   boolean useCache() default true;
 
+  /**
+   * Set to false for a select that is not repeated within a session, so that its results are not kept
+   * in the local cache. Ignored if the statement has nested selects or nested result maps.
+   */
+  boolean useLocalCache() default true;
+
+  /**
+   * The number of eager nested selects of a result set that may run at the same time on extra connections of the
+   * data source. 0 or 1 runs them one after another on the connection of the session.
+   */
+  int nestedSelectParallelism() default 0;
+
   FlushCachePolicy flushCache() default FlushCachePolicy.DEFAULT;
 
   ResultSetType resultSetType() default ResultSetType.DEFAULT;
@@ -63,4 +75,10 @@ public @interface Options {
   String keyColumn() default "";
 
   String resultSets() default "";
+
+  /**
+   * The comma separated tables read or written by the statement, used instead of those found in its SQL
+   * when {@code cacheInvalidationScope} is {@code TABLE}.
+   */
+  String tables() default "";
 }
@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
@@ -34,9 +36,12 @@ import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 
 /**
  * @author Clinton Begin
@@ -60,10 +65,42 @@ public class MapperMethod {
     this.command = new SqlCommand(config, mapperInterface, method);
     /*创建MethodSignature 包含方法的返回值returnType等关键字段*/
     this.method = new MethodSignature(config, mapperInterface, method);
+    if (this.method.returnsFuture() && (command.getType() == SqlCommandType.FLUSH || this.method.returnsCursor())) {
+      throw new BindingException("Mapper method '" + mapperInterface.getName() + "." + method.getName()
+          + "' cannot return a future, it must run in the session of its caller.");
+    }
   }
 
   /*执行mapper接口中的方法*/
   public Object execute(SqlSession sqlSession, Object[] args) {
+    if (method.returnsFuture()) {
+      return executeAsync(sqlSession.getConfiguration(), args);
+    }
+    return executeInSession(sqlSession, args);
+  }
+
+  /**
+   * Runs the statement on the async executor service of the configuration, in a session of its own.
+   * A statement other than a select is committed if it succeeds, and rolled back otherwise.
+   */
+  private CompletableFuture<Object> executeAsync(Configuration configuration, Object[] args) {
+    // the deadline of the caller thread still holds on the thread that runs the statement
+    final Deadline deadline = Deadline.current();
+    return CompletableFuture.supplyAsync(() -> {
+      try (SqlSession session = new DefaultSqlSessionFactory(configuration).openSession()) {
+        if (deadline != null) {
+          session.setDeadline(deadline);
+        }
+        Object result = executeInSession(session, args);
+        if (command.getType() != SqlCommandType.SELECT) {
+          session.commit();
+        }
+        return result;
+      }
+    }, configuration.getAsyncExecutorService());
+  }
+
+  private Object executeInSession(SqlSession sqlSession, Object[] args) {
     Object result;
     /*按照SQL语句的不同type，如insert update等，调用SQLSession的insert update等对应的方法，执行数据库操作*/
     switch (command.getType()) {
@@ -88,6 +125,9 @@ public class MapperMethod {
           /*无需返回值时*/
           executeWithResultHandler(sqlSession, args);
           result = null;
+        } else if (method.returnsPage()) {
+          /*返回值为Page类型时，同时查询总行数*/
+          result = executeForPage(sqlSession, args);
         } else if (method.returnsMany()) {
           /*返回值为collection集合类型或者数组类型时*/
           result = executeForMany(sqlSession, args);
@@ -197,6 +237,12 @@ public class MapperMethod {
     return result;
   }
 
+  private <E> Page<E> executeForPage(SqlSession sqlSession, Object[] args) {
+    Object param = method.convertArgsToSqlCommandParam(args);
+    RowBounds rowBounds = method.hasRowBounds() ? method.extractRowBounds(args) : RowBounds.DEFAULT;
+    return sqlSession.selectPage(command.getName(), param, rowBounds);
+  }
+
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     Object collection = config.getObjectFactory().create(method.getReturnType());
     MetaObject metaObject = config.newMetaObject(collection);
@@ -335,6 +381,8 @@ public class MapperMethod {
     private final boolean returnsVoid;
     private final boolean returnsCursor;
     private final boolean returnsOptional;
+    private final boolean returnsFuture;
+    private final boolean returnsPage;
     private final Class<?> returnType;
     private final String mapKey;
     private final Integer resultHandlerIndex;
@@ -343,18 +391,27 @@ public class MapperMethod {
 
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      this.returnsFuture = resolvedReturnType instanceof ParameterizedType
+          && isFutureType(((ParameterizedType) resolvedReturnType).getRawType());
+      if (this.returnsFuture) {
+        // the statement returns what the future completes with
+        resolvedReturnType = ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0];
+      }
       if (resolvedReturnType instanceof Class<?>) {
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) {
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
+      } else if (this.returnsFuture) {
+        this.returnType = Object.class;
       } else {
         this.returnType = method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || this.returnsFuture && Void.class.equals(this.returnType);
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
-      this.mapKey = getMapKey(method);
+      this.returnsPage = Page.class.equals(this.returnType);
+      this.mapKey = getMapKey(method, this.returnType);
       this.returnsMap = this.mapKey != null;
       this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
       this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
@@ -405,6 +462,15 @@ public class MapperMethod {
       return returnsCursor;
     }
 
+    /**
+     * return whether return type is {@code Page}, which holds the rows of the page and the number of rows of the
+     * whole select.
+     * @return return {@code true}, if return type is {@code Page}
+     */
+    public boolean returnsPage() {
+      return returnsPage;
+    }
+
     /**
      * return whether return type is {@code java.util.Optional}.
      * @return return {@code true}, if return type is {@code java.util.Optional}
@@ -414,6 +480,19 @@ public class MapperMethod {
       return returnsOptional;
     }
 
+    /**
+     * return whether return type is {@code CompletableFuture} or {@code CompletionStage}, in which case
+     * {@link #getReturnType()} is the type the future completes with.
+     * @return return {@code true}, if the statement runs asynchronously
+     */
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
+    private static boolean isFutureType(Type type) {
+      return CompletableFuture.class.equals(type) || CompletionStage.class.equals(type);
+    }
+
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
       final Class<?>[] argTypes = method.getParameterTypes();
@@ -429,9 +508,9 @@ public class MapperMethod {
       return index;
     }
 
-    private String getMapKey(Method method) {
+    private String getMapKey(Method method, Class<?> returnType) {
       String mapKey = null;
-      if (Map.class.isAssignableFrom(method.getReturnType())) {
+      if (Map.class.isAssignableFrom(returnType)) {
         final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
         if (mapKeyAnnotation != null) {
           mapKey = mapKeyAnnotation.value();
@@ -15,8 +15,10 @@
  */
 package org.apache.ibatis.builder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -58,11 +60,27 @@ public abstract class BaseBuilder {
     return value == null ? defaultValue : Integer.valueOf(value);
   }
 
+  protected Long longValueOf(String value, Long defaultValue) {
+    return value == null ? defaultValue : Long.valueOf(value);
+  }
+
   protected Set<String> stringSetValueOf(String value, String defaultValue) {
     value = value == null ? defaultValue : value;
     return new HashSet<>(Arrays.asList(value.split(",")));
   }
 
+  protected List<String> stringListValueOf(String value) {
+    List<String> values = new ArrayList<>();
+    if (value != null) {
+      for (String element : value.split(",")) {
+        if (!element.trim().isEmpty()) {
+          values.add(element.trim());
+        }
+      }
+    }
+    return values;
+  }
+
   protected JdbcType resolveJdbcType(String alias) {
     if (alias == null) {
       return null;
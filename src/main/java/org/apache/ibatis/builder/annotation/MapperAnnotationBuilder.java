@@ -85,6 +85,7 @@ import org.apache.ibatis.parsing.PropertyParser;
 import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.JdbcType;
@@ -198,8 +199,10 @@ public class MapperAnnotationBuilder {
     if (cacheDomain != null) {
       Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
       Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
+      Long timeToLive = cacheDomain.timeToLive() == 0 ? null : cacheDomain.timeToLive();
+      Long negativeTimeToLive = cacheDomain.negativeTimeToLive() == 0 ? null : cacheDomain.negativeTimeToLive();
       Properties props = convertToProperties(cacheDomain.properties());
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, timeToLive, negativeTimeToLive, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
     }
   }
 
@@ -330,6 +333,8 @@ public class MapperAnnotationBuilder {
       boolean isSelect = sqlCommandType == SqlCommandType.SELECT;
       boolean flushCache = !isSelect;
       boolean useCache = isSelect;
+      boolean useLocalCache = true;
+      Integer nestedSelectParallelism = null;
 
       KeyGenerator keyGenerator;
       String keyProperty = null;
@@ -358,6 +363,8 @@ public class MapperAnnotationBuilder {
           flushCache = false;
         }
         useCache = options.useCache();
+        useLocalCache = options.useLocalCache();
+        nestedSelectParallelism = options.nestedSelectParallelism();
         fetchSize = options.fetchSize() > -1 || options.fetchSize() == Integer.MIN_VALUE ? options.fetchSize() : null; //issue #348
         timeout = options.timeout() > -1 ? options.timeout() : null;
         statementType = options.statementType();
@@ -398,7 +405,10 @@ public class MapperAnnotationBuilder {
           null,
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          options != null ? nullOrEmpty(options.tables()) : null,
+          useLocalCache,
+          nestedSelectParallelism);
     }
   }
 
@@ -445,7 +455,7 @@ public class MapperAnnotationBuilder {
     } else if (resolvedReturnType instanceof ParameterizedType) {
       ParameterizedType parameterizedType = (ParameterizedType) resolvedReturnType;
       Class<?> rawType = (Class<?>) parameterizedType.getRawType();
-      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType)) {
+      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType) || Page.class.equals(rawType)) {
         Type[] actualTypeArguments = parameterizedType.getActualTypeArguments();
         if (actualTypeArguments != null && actualTypeArguments.length == 1) {
           Type returnTypeParameter = actualTypeArguments[0];
@@ -602,7 +612,9 @@ public class MapperAnnotationBuilder {
           flags,
           null,
           null,
-          isLazy(result));
+          isLazy(result),
+          nestedBatchSelectId(result),
+          nullOrEmpty(result.one().batchKey().length() > 0 ? result.one().batchKey() : result.many().batchKey()));
       resultMappings.add(resultMapping);
     }
   }
@@ -618,6 +630,20 @@ public class MapperAnnotationBuilder {
     return nestedSelect;
   }
 
+  private String nestedBatchSelectId(Result result) {
+    String nestedBatchSelect = result.one().batchSelect();
+    if (nestedBatchSelect.length() < 1) {
+      nestedBatchSelect = result.many().batchSelect();
+    }
+    if (nestedBatchSelect.length() < 1) {
+      return null;
+    }
+    if (!nestedBatchSelect.contains(".")) {
+      nestedBatchSelect = type.getName() + "." + nestedBatchSelect;
+    }
+    return nestedBatchSelect;
+  }
+
   private boolean isLazy(Result result) {
     boolean isLazy = configuration.isLazyLoadingEnabled();
     if (result.one().select().length() > 0 && FetchType.DEFAULT != result.one().fetchType()) {
@@ -22,9 +22,11 @@ import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.pagination.Dialect;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -40,6 +42,7 @@ import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.CacheInvalidationScope;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
@@ -147,6 +150,8 @@ public class XMLConfigBuilder extends BaseBuilder {
       objectWrapperFactoryElement(root.evalNode("objectWrapperFactory"));
       //解析reflectorFactory节点，创建Reflector类反射，不常用
       reflectorFactoryElement(root.evalNode("reflectorFactory"));
+      //解析cacheInvalidationBus节点，在多个节点之间传递二级缓存的失效
+      cacheInvalidationBusElement(root.evalNode("cacheInvalidationBus"));
       //将解析并读取的settings节点后得到的键值对，设置到Configuration实例的相关变量中
       //这些键值对决定了mybatis的运行方式，如果没有设置，则采用默认值
       settingsElement(settings);
@@ -214,6 +219,24 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setLogImpl(logImpl);
   }
 
+  /**
+   * 分页方言可以是方言注册表中的数据库id（如 mysql、oracle），也可以是Dialect实现类的别名或全限定名
+   */
+  private Dialect resolveDialect(String value) {
+    if (value == null) {
+      return null;
+    }
+    Dialect dialect = configuration.getDialectRegistry().getDialect(value);
+    if (dialect != null) {
+      return dialect;
+    }
+    try {
+      return (Dialect) resolveClass(value).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new BuilderException("Error creating pagination dialect " + value + ". Cause: " + e, e);
+    }
+  }
+
   /**
    * 读取并解析typeAliases元素，并设置到Configuration的typeAliasesRegistry中
    * @param parent
@@ -298,6 +321,16 @@ public class XMLConfigBuilder extends BaseBuilder {
     }
   }
 
+  private void cacheInvalidationBusElement(XNode context) throws Exception {
+    if (context != null) {
+      String type = context.getStringAttribute("type");
+      Properties properties = context.getChildrenAsProperties();
+      CacheInvalidationBus bus = (CacheInvalidationBus) resolveClass(type).getDeclaredConstructor().newInstance();
+      bus.setProperties(properties);
+      configuration.setCacheInvalidationBus(bus);
+    }
+  }
+
   /**
    * 读取并解析properties节点，合并到configuration的variables变量中
    * @param context
@@ -371,6 +404,39 @@ public class XMLConfigBuilder extends BaseBuilder {
     //设置LocalCacheScope，本地缓存的作用域，本地缓存用来加速嵌套查询和防止循环引用
     //session 则缓存为sqlSession中的所有查询语句，statement 则相同sqlSession的同一个调用语句才做缓存
     configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
+    //设置LocalCacheSize和LocalCacheMaxBytes，限制本地缓存的条目数和估算的内存大小，超出时按LRU淘汰
+    configuration.setLocalCacheSize(integerValueOf(props.getProperty("localCacheSize"), null));
+    configuration.setLocalCacheMaxBytes(longValueOf(props.getProperty("localCacheMaxBytes"), null));
+    //设置BatchFlushSize、BatchFlushBytes和BatchFlushInterval，批量执行器在达到更新条数、估算字节数或时间间隔时自动执行批处理
+    configuration.setBatchFlushSize(integerValueOf(props.getProperty("batchFlushSize"), null));
+    configuration.setBatchFlushBytes(longValueOf(props.getProperty("batchFlushBytes"), null));
+    configuration.setBatchFlushInterval(longValueOf(props.getProperty("batchFlushInterval"), null));
+    //设置BatchRetainParameters，批处理结果是否保留参数对象，false 则只保留更新条数
+    configuration.setBatchRetainParameters(booleanValueOf(props.getProperty("batchRetainParameters"), true));
+    //设置BatchGroupBySql，批量执行器将相同语句的更新加入同一个批处理，BatchStatementOrder 指定批处理的执行顺序，语句id之间用逗号隔开
+    configuration.setBatchGroupBySql(booleanValueOf(props.getProperty("batchGroupBySql"), false));
+    configuration.setBatchStatementOrder(stringListValueOf(props.getProperty("batchStatementOrder")));
+    //设置BatchMultiRowInsert，批量执行器将单行insert语句改写为多行 VALUES 语句执行，BatchMultiRowInsertMaxParameters 限制每条语句的参数个数
+    configuration.setBatchMultiRowInsert(booleanValueOf(props.getProperty("batchMultiRowInsert"), false));
+    configuration.setBatchMultiRowInsertMaxParameters(integerValueOf(props.getProperty("batchMultiRowInsertMaxParameters"), 2000));
+    //设置ReuseStatementCacheSize，REUSE执行器最多保持打开的语句数，超出时按LRU关闭
+    configuration.setReuseStatementCacheSize(integerValueOf(props.getProperty("reuseStatementCacheSize"), null));
+    //设置PhysicalPagination，带RowBounds的查询改写为数据库分页语句，方言按databaseId查找，PaginationDialect 可直接指定方言的别名或类名
+    configuration.setPhysicalPagination(booleanValueOf(props.getProperty("physicalPagination"), false));
+    configuration.setPaginationDialect(resolveDialect(props.getProperty("paginationDialect")));
+    //设置ConcurrentPageCount，分页查询的count语句在异步线程池中用单独的会话与分页查询同时执行
+    configuration.setConcurrentPageCount(booleanValueOf(props.getProperty("concurrentPageCount"), false));
+    //设置ResultMappingThreads，简单resultMap的结果对象由异步线程池中的线程构建，调用线程只读取结果集，0 则在调用线程中逐行映射
+    configuration.setResultMappingThreads(integerValueOf(props.getProperty("resultMappingThreads"), 0));
+    //设置AsyncExecutorThreads，执行返回CompletableFuture的mapper方法的线程数，未设置时优先使用虚拟线程
+    configuration.setAsyncExecutorThreads(integerValueOf(props.getProperty("asyncExecutorThreads"), null));
+    //设置CacheInvalidationScope，二级缓存的失效范围
+    //namespace 则更新语句清空所在命名空间的缓存，table 则只移除所有缓存中依赖被更新表的条目
+    configuration.setCacheInvalidationScope(CacheInvalidationScope.valueOf(props.getProperty("cacheInvalidationScope", "NAMESPACE")));
+    //设置CacheStatisticsEnabled，记录每个二级缓存的命中、未命中、写入、淘汰、清空次数和加载耗时
+    configuration.setCacheStatisticsEnabled(booleanValueOf(props.getProperty("cacheStatisticsEnabled"), false));
+    //设置CacheStatisticsJmxEnabled，将二级缓存的统计信息注册为 MBean
+    configuration.setCacheStatisticsJmxEnabled(booleanValueOf(props.getProperty("cacheStatisticsJmxEnabled"), false));
     //设置JdbcTypeForNull 没有为参数提供特定的jdbc类型，JAVA null对应的jdbc类型
     //可为 null varchar other
     configuration.setJdbcTypeForNull(JdbcType.valueOf(props.getProperty("jdbcTypeForNull", "OTHER")));
@@ -15,6 +15,9 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
 
 /**
@@ -58,6 +61,38 @@ public interface Cache {
    */
   Object getObject(Object key);
 
+  /**
+   * Optional. Puts several entries at once, e.g. in one round trip to a remote store.
+   * <p>
+   * Called with all the entries committed by a transaction. The default implementation puts them one by one.
+   *
+   * @param objects The values to put by key, a value may be null like with {@link #putObject(Object, Object)}
+   */
+  default void putObjects(Map<?, ?> objects) {
+    for (Map.Entry<?, ?> entry : objects.entrySet()) {
+      putObject(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Optional. Gets several entries at once, e.g. in one round trip to a remote store.
+   * <p>
+   * The default implementation gets them one by one.
+   *
+   * @param keys The keys
+   * @return The objects stored in the cache by key, without the keys that were not found
+   */
+  default Map<Object, Object> getObjects(Collection<?> keys) {
+    Map<Object, Object> objects = new LinkedHashMap<>();
+    for (Object key : keys) {
+      Object value = getObject(key);
+      if (value != null) {
+        objects.put(key, value);
+      }
+    }
+    return objects;
+  }
+
   /**
    * As of 3.3.0 this method is only called during a rollback
    * for any previous value that was missing in the cache.
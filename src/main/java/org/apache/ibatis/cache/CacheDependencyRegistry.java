@@ -0,0 +1,214 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.parsing.TableNameParser;
+
+/**
+ * Tracks which tables the entries of the second level caches were read from, so that a write only
+ * invalidates the entries that depend on the tables it touches, in whatever namespace they are cached.
+ * <p>
+ * The tables of a statement are those declared with its {@code tables} attribute or else those found
+ * in its SQL by {@link TableNameParser}. A statement whose tables are unknown depends on
+ * {@link #ANY_TABLE}: its entries are invalidated by any write and, for a write, all caches are cleared.
+ * <p>
+ * To bound the memory used, a cache tracking too many keys falls back to being cleared as a whole by
+ * a write to any of the tables its entries depend on.
+ *
+ * @see org.apache.ibatis.session.CacheInvalidationScope#TABLE
+ */
+public class CacheDependencyRegistry {
+
+  public static final String ANY_TABLE = "*";
+
+  private static final Set<String> ANY_TABLES = Collections.singleton(ANY_TABLE);
+  private static final int MAX_PARSED_STATEMENTS = 1024;
+  private static final int MAX_TRACKED_KEYS = 1 << 16;
+
+  private final ConcurrentMap<String, Set<String>> parsedTables = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Cache, Dependencies> dependencies = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<Dependencies>> dependenciesByTable = new ConcurrentHashMap<>();
+
+  /**
+   * @return The tables read or written by the statement
+   */
+  public Set<String> getTables(MappedStatement ms, BoundSql boundSql) {
+    return getTables(ms, boundSql.getSql());
+  }
+
+  /**
+   * @return The tables read or written by the statement, run with this SQL
+   */
+  public Set<String> getTables(MappedStatement ms, String sql) {
+    Set<String> tables = ms.getTables();
+    return tables != null ? tables : parse(sql);
+  }
+
+  /**
+   * Same as {@link #getTables(MappedStatement, BoundSql)}, but only builds the SQL if the statement
+   * does not declare its tables.
+   */
+  public Set<String> getTables(MappedStatement ms, Object parameterObject) {
+    Set<String> tables = ms.getTables();
+    return tables != null ? tables : parse(ms.getBoundSql(parameterObject).getSql());
+  }
+
+  /**
+   * Puts an entry in a cache and records that it depends on these tables.
+   */
+  public void putObject(Cache cache, Object key, Object value, Set<String> tables) {
+    Dependencies cacheDependencies = dependencies.computeIfAbsent(cache, Dependencies::new);
+    for (String table : tables) {
+      dependenciesByTable.computeIfAbsent(table, k -> ConcurrentHashMap.newKeySet()).add(cacheDependencies);
+    }
+    cacheDependencies.putObject(key, value, tables);
+  }
+
+  /**
+   * Puts several entries in a cache at once and records the tables each of them depends on.
+   */
+  public void putObjects(Cache cache, Map<?, ?> objects, Map<?, Set<String>> tables) {
+    Dependencies cacheDependencies = dependencies.computeIfAbsent(cache, Dependencies::new);
+    for (Set<String> entryTables : tables.values()) {
+      for (String table : entryTables) {
+        dependenciesByTable.computeIfAbsent(table, k -> ConcurrentHashMap.newKeySet()).add(cacheDependencies);
+      }
+    }
+    cacheDependencies.putObjects(objects, tables);
+  }
+
+  /**
+   * Removes from all caches the entries that depend on these tables.
+   */
+  public void invalidate(Collection<String> tables) {
+    Collection<Dependencies> affected;
+    if (tables.contains(ANY_TABLE)) {
+      affected = dependencies.values();
+    } else {
+      affected = new HashSet<>(dependenciesByTable.getOrDefault(ANY_TABLE, Collections.emptySet()));
+      for (String table : tables) {
+        affected.addAll(dependenciesByTable.getOrDefault(table, Collections.emptySet()));
+      }
+    }
+    for (Dependencies cacheDependencies : affected) {
+      cacheDependencies.invalidate(tables);
+    }
+  }
+
+  /**
+   * @return Whether an entry read from the first tables depends on a write to the second ones
+   */
+  public static boolean dependsOn(Collection<String> readTables, Collection<String> writtenTables) {
+    if (readTables.isEmpty() || writtenTables.isEmpty()) {
+      return false;
+    }
+    if (readTables.contains(ANY_TABLE) || writtenTables.contains(ANY_TABLE)) {
+      return true;
+    }
+    for (String table : readTables) {
+      if (writtenTables.contains(table)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Set<String> parse(String sql) {
+    Set<String> tables = parsedTables.get(sql);
+    if (tables == null) {
+      tables = TableNameParser.parse(sql);
+      tables = tables.isEmpty() ? ANY_TABLES : Collections.unmodifiableSet(tables);
+      if (parsedTables.size() >= MAX_PARSED_STATEMENTS) {
+        // dynamic SQL can produce any number of statements
+        parsedTables.clear();
+      }
+      parsedTables.put(sql, tables);
+    }
+    return tables;
+  }
+
+  private static final class Dependencies {
+    private final Cache cache;
+    private final Map<String, Set<Object>> keysByTable = new HashMap<>();
+    private final Set<String> overflowedTables = new HashSet<>();
+    private int trackedKeys;
+
+    Dependencies(Cache cache) {
+      this.cache = cache;
+    }
+
+    synchronized void putObject(Object key, Object value, Set<String> tables) {
+      // put under the same lock as invalidate so that an entry is never cached without its dependencies
+      cache.putObject(key, value);
+      track(key, tables);
+    }
+
+    synchronized void putObjects(Map<?, ?> objects, Map<?, Set<String>> tables) {
+      cache.putObjects(objects);
+      for (Map.Entry<?, Set<String>> entry : tables.entrySet()) {
+        track(entry.getKey(), entry.getValue());
+      }
+    }
+
+    private void track(Object key, Set<String> tables) {
+      if (trackedKeys + tables.size() > MAX_TRACKED_KEYS) {
+        overflowedTables.addAll(keysByTable.keySet());
+        keysByTable.clear();
+        trackedKeys = 0;
+      }
+      for (String table : tables) {
+        if (!overflowedTables.contains(table) && keysByTable.computeIfAbsent(table, k -> new HashSet<>()).add(key)) {
+          trackedKeys++;
+        }
+      }
+    }
+
+    synchronized void invalidate(Collection<String> tables) {
+      if (dependsOn(overflowedTables, tables) || tables.contains(ANY_TABLE)) {
+        cache.clear();
+        keysByTable.clear();
+        overflowedTables.clear();
+        trackedKeys = 0;
+        return;
+      }
+      removeObjects(keysByTable.remove(ANY_TABLE));
+      for (String table : tables) {
+        removeObjects(keysByTable.remove(table));
+      }
+    }
+
+    private void removeObjects(Set<Object> keys) {
+      if (keys != null) {
+        trackedKeys -= keys.size();
+        for (Object key : keys) {
+          cache.removeObject(key);
+        }
+      }
+    }
+  }
+
+}
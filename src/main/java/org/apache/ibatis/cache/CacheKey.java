@@ -16,18 +16,23 @@
 package org.apache.ibatis.cache;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.StringJoiner;
 
 import org.apache.ibatis.reflection.ArrayUtil;
 
 /**
+ * A key built from a sequence of components, e.g. the statement id, row bounds, SQL and parameters of a query.
+ * <p>
+ * Components are kept in an array that is sized up front when the number of components is known and that is
+ * shared by clones until one of them is updated. A 64 bit hash of the sequence is maintained as components
+ * are added, so two different keys almost never have to compare their components.
+ *
  * @author Clinton Begin
  */
 public class CacheKey implements Cloneable, Serializable {
 
-  private static final long serialVersionUID = 1146682552656046210L;
+  private static final long serialVersionUID = -5398466424458651337L;
 
   public static final CacheKey NULL_CACHE_KEY = new CacheKey(){
     @Override
@@ -40,42 +45,68 @@ public class CacheKey implements Cloneable, Serializable {
     }
   };
 
-  private static final int DEFAULT_MULTIPLIER = 37;
-  private static final int DEFAULT_HASHCODE = 17;
+  private static final Object[] EMPTY_COMPONENTS = {};
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+  private static final int NULL_HASHCODE = 1;
+  // Integer.valueOf does not cache the limit of RowBounds.DEFAULT
+  private static final Integer MAX_INT = Integer.MAX_VALUE;
 
-  private final int multiplier;
-  private int hashcode;
-  private long checksum;
+  private long hash;
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient.  While true if content is not serializable, this is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] components;
+  private transient boolean shared;
 
   public CacheKey() {
-    this.hashcode = DEFAULT_HASHCODE;
-    this.multiplier = DEFAULT_MULTIPLIER;
-    this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.hash = SEED;
+    this.components = EMPTY_COMPONENTS;
   }
 
-  public CacheKey(Object[] objects) {
+  /**
+   * @param expectedUpdates The number of components that will be added, so the key allocates them once
+   */
+  public CacheKey(int expectedUpdates) {
     this();
+    if (expectedUpdates > 0) {
+      this.components = new Object[expectedUpdates];
+    }
+  }
+
+  public CacheKey(Object[] objects) {
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
-  public void update(Object object) {
-    int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+  /**
+   * @return A copy of the objects this key was updated with, in order
+   */
+  public Object[] getComponents() {
+    return Arrays.copyOf(components, count);
+  }
 
-    count++;
-    checksum += baseHashCode;
-    baseHashCode *= count;
+  public void update(Object object) {
+    int baseHashCode = object == null ? NULL_HASHCODE : ArrayUtil.hashCode(object);
+    hash = mix(hash + (baseHashCode & 0xFFFFFFFFL) + SEED);
 
-    hashcode = multiplier * hashcode + baseHashCode;
+    if (shared || count == components.length) {
+      components = Arrays.copyOf(components, Math.max(DEFAULT_CAPACITY, count * 2));
+      shared = false;
+    }
+    components[count++] = object;
+  }
 
-    updateList.add(object);
+  /**
+   * Same as {@link #update(Object)} with the boxed value, so that the key equals one updated with an {@link Integer}.
+   * Unlike {@link Integer#valueOf(int)}, it does not allocate for {@link Integer#MAX_VALUE}, the limit of
+   * {@code RowBounds.DEFAULT} that most keys hold; other values outside of the Integer cache are still boxed.
+   */
+  public void update(int value) {
+    update(value == Integer.MAX_VALUE ? MAX_INT : Integer.valueOf(value));
   }
 
   public void updateAll(Object[] objects) {
@@ -95,20 +126,18 @@ public class CacheKey implements Cloneable, Serializable {
 
     final CacheKey cacheKey = (CacheKey) object;
 
-    if (hashcode != cacheKey.hashcode) {
-      return false;
-    }
-    if (checksum != cacheKey.checksum) {
+    if (hash != cacheKey.hash) {
       return false;
     }
     if (count != cacheKey.count) {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (!ArrayUtil.equals(thisObject, thatObject)) {
+    Object[] thoseComponents = cacheKey.components;
+    for (int i = 0; i < count; i++) {
+      Object thisObject = components[i];
+      Object thatObject = thoseComponents[i];
+      if (thisObject != thatObject && !ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
     }
@@ -117,23 +146,36 @@ public class CacheKey implements Cloneable, Serializable {
 
   @Override
   public int hashCode() {
-    return hashcode;
+    return (int) (hash ^ (hash >>> 32));
   }
 
   @Override
   public String toString() {
     StringJoiner returnValue = new StringJoiner(":");
-    returnValue.add(String.valueOf(hashcode));
-    returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    returnValue.add(String.valueOf(hashCode()));
+    returnValue.add(Long.toHexString(hash));
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(components[i]));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    // both keys copy the components on their next update
+    shared = true;
+    clonedCacheKey.shared = true;
     return clonedCacheKey;
   }
 
+  /**
+   * The finalizer of SplitMix64, so that every bit of each component hash affects the whole key hash.
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
 }
@@ -0,0 +1,365 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.ibatis.cache.decorators.SnapshotCache;
+import org.apache.ibatis.cache.serializer.CompactSerializer;
+import org.apache.ibatis.cache.serializer.Serializer;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.Discriminator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.CacheInvalidationScope;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Periodically writes the most recently used entries of a second level cache to a local file, and
+ * preloads them when the {@code SqlSessionFactory} is built, so that a restarted node does not start cold.
+ * <p>
+ * The file is a gzipped binary format starting with a magic number and a format version, so that files of
+ * another version are ignored. Keys and values are written with the {@link CompactSerializer}, which falls
+ * back to Java serialization for result objects. Each entry is tied to the id of its statement and to a
+ * fingerprint of the statement result maps: the entries of statements that no longer exist or whose
+ * mapping changed since the file was written are discarded on load. The SQL itself is part of each key,
+ * so entries of a statement whose SQL changed are never hit.
+ * <p>
+ * Preloaded entries are put in the cache as if they had just been queried, so they get a full time to live,
+ * and are tracked by table when the {@code cacheInvalidationScope} setting is {@code TABLE}.
+ *
+ * @see Configuration#loadCacheSnapshots()
+ */
+public class CacheSnapshot {
+
+  private static final Log log = LogFactory.getLog(CacheSnapshot.class);
+
+  static final int MAGIC = 0x4D42434B;
+  static final int VERSION = 1;
+
+  private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-cache-snapshot");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final String id;
+  private final Serializer serializer = new CompactSerializer();
+  private String snapshotFile;
+  private long snapshotInterval = TimeUnit.MINUTES.toMillis(5);
+  private int snapshotSize = 1000;
+  private SnapshotCache cache;
+  private Configuration configuration;
+  private ScheduledFuture<?> task;
+
+  public CacheSnapshot(String id) {
+    this.id = id;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getSnapshotFile() {
+    return snapshotFile;
+  }
+
+  public void setSnapshotFile(String snapshotFile) {
+    this.snapshotFile = snapshotFile;
+  }
+
+  public long getSnapshotInterval() {
+    return snapshotInterval;
+  }
+
+  /**
+   * @param snapshotInterval How many milliseconds apart the file is written, 0 to only write it on {@link #write()}
+   */
+  public void setSnapshotInterval(long snapshotInterval) {
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  public int getSnapshotSize() {
+    return snapshotSize;
+  }
+
+  /**
+   * @param snapshotSize How many of the most recently used entries are written at most
+   */
+  public void setSnapshotSize(int snapshotSize) {
+    this.snapshotSize = snapshotSize;
+  }
+
+  /**
+   * Called by the {@link SnapshotCache} this snapshot reads its entries from.
+   */
+  public void attach(SnapshotCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Preloads the entries of the file if it exists, then starts writing it periodically.
+   * Does nothing if already loaded.
+   *
+   * @param configuration The configuration holding the cache and its statements
+   */
+  public synchronized void load(Configuration configuration) {
+    if (this.configuration != null) {
+      return;
+    }
+    this.configuration = configuration;
+    Path file = Paths.get(snapshotFile);
+    if (Files.isRegularFile(file)) {
+      try {
+        int loaded = read(file);
+        if (log.isDebugEnabled()) {
+          log.debug("Preloaded " + loaded + " entries in cache " + id + " from " + file);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Ignoring the snapshot " + file + " of cache " + id + ".  Cause: " + e);
+      }
+    }
+    if (snapshotInterval > 0) {
+      task = writer.scheduleWithFixedDelay(this::writeQuietly, snapshotInterval, snapshotInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops writing the file periodically.
+   */
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+  }
+
+  /**
+   * Writes the most recently used entries to the file now. The file is replaced once fully written.
+   *
+   * @throws IOException If the file could not be written
+   */
+  public synchronized void write() throws IOException {
+    if (cache == null || configuration == null) {
+      throw new CacheException("The snapshot of cache " + id + " is not loaded yet.");
+    }
+    Map<String, Integer> statements = new LinkedHashMap<>();
+    List<Object[]> entries = new ArrayList<>();
+    for (Map.Entry<Object, Object> entry : cache.getHotEntries().entrySet()) {
+      String statementId = statementIdOf(entry.getKey());
+      if (statementId == null || !configuration.hasStatement(statementId, false)) {
+        continue;
+      }
+      byte[] key;
+      byte[] value;
+      try {
+        key = serializer.serialize(new ArrayList<>(Arrays.asList(((CacheKey) entry.getKey()).getComponents())));
+        value = serializer.serialize(entry.getValue());
+      } catch (CacheException e) {
+        // e.g. a result object that is not serializable
+        continue;
+      }
+      Integer statement = statements.computeIfAbsent(statementId, k -> statements.size());
+      entries.add(new Object[] {statement, key, value});
+    }
+    Path file = Paths.get(snapshotFile).toAbsolutePath();
+    Files.createDirectories(file.getParent());
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporary))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(id);
+      out.writeInt(statements.size());
+      for (String statementId : statements.keySet()) {
+        out.writeUTF(statementId);
+        out.writeLong(fingerprint(configuration.getMappedStatement(statementId, false)));
+      }
+      out.writeInt(entries.size());
+      for (Object[] entry : entries) {
+        out.writeInt((Integer) entry[0]);
+        writeBytes(out, (byte[]) entry[1]);
+        writeBytes(out, (byte[]) entry[2]);
+      }
+    }
+    try {
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private void writeQuietly() {
+    try {
+      write();
+    } catch (Exception e) {
+      log.warn("Error writing the snapshot of cache " + id + ".  Cause: " + e);
+    }
+  }
+
+  private int read(Path file) throws IOException {
+    Map<Object, Object> entries = new LinkedHashMap<>();
+    Map<Object, MappedStatement> entryStatements = new LinkedHashMap<>();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a cache snapshot");
+      }
+      int version = in.readInt();
+      if (version != VERSION || !id.equals(in.readUTF())) {
+        return 0;
+      }
+      MappedStatement[] statements = new MappedStatement[in.readInt()];
+      for (int i = 0; i < statements.length; i++) {
+        String statementId = in.readUTF();
+        long fingerprint = in.readLong();
+        if (configuration.hasStatement(statementId, false)) {
+          MappedStatement ms = configuration.getMappedStatement(statementId, false);
+          statements[i] = fingerprint(ms) == fingerprint ? ms : null;
+        }
+      }
+      List<Object[]> read = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        MappedStatement ms = statements[in.readInt()];
+        byte[] key = readBytes(in);
+        byte[] value = readBytes(in);
+        if (ms != null) {
+          read.add(new Object[] {ms, key, value});
+        }
+      }
+      // written most recently used first, put least recently used first
+      for (int i = read.size() - 1; i >= 0; i--) {
+        Object[] entry = read.get(i);
+        try {
+          CacheKey key = new CacheKey(((List<?>) serializer.deserialize((byte[]) entry[1])).toArray());
+          entries.put(key, serializer.deserialize((byte[]) entry[2]));
+          entryStatements.put(key, (MappedStatement) entry[0]);
+        } catch (CacheException e) {
+          // e.g. a result class that changed
+        }
+      }
+    }
+    if (!entries.isEmpty()) {
+      put(entries, entryStatements);
+    }
+    return entries.size();
+  }
+
+  private void put(Map<Object, Object> entries, Map<Object, MappedStatement> entryStatements) {
+    Cache target = configuration.getCache(id);
+    if (configuration.getCacheInvalidationScope() != CacheInvalidationScope.TABLE) {
+      target.putObjects(entries);
+      return;
+    }
+    CacheDependencyRegistry registry = configuration.getCacheDependencyRegistry();
+    Map<Object, Set<String>> tables = new LinkedHashMap<>();
+    for (Map.Entry<Object, MappedStatement> entry : entryStatements.entrySet()) {
+      Object[] components = ((CacheKey) entry.getKey()).getComponents();
+      // the components of a query key are the statement id, offset, limit, sql, parameters and environment
+      String sql = components.length > 3 && components[3] instanceof String ? (String) components[3] : "";
+      tables.put(entry.getKey(), registry.getTables(entry.getValue(), sql));
+    }
+    registry.putObjects(target, entries, tables);
+  }
+
+  private static String statementIdOf(Object key) {
+    if (!(key instanceof CacheKey)) {
+      return null;
+    }
+    Object[] components = ((CacheKey) key).getComponents();
+    return components.length > 0 && components[0] instanceof String ? (String) components[0] : null;
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  /**
+   * @return A hash of what a statement maps its results with, which changes if its result maps change
+   */
+  static long fingerprint(MappedStatement ms) {
+    StringBuilder description = new StringBuilder(ms.getId()).append('|').append(ms.getSqlCommandType());
+    Set<String> described = new HashSet<>();
+    for (ResultMap resultMap : ms.getResultMaps()) {
+      describe(ms.getConfiguration(), resultMap, description, described);
+    }
+    // FNV-1a
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : description.toString().getBytes(StandardCharsets.UTF_8)) {
+      hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static void describe(Configuration configuration, ResultMap resultMap, StringBuilder description, Set<String> described) {
+    if (!described.add(resultMap.getId())) {
+      return;
+    }
+    description.append('|').append(resultMap.getId()).append(':').append(resultMap.getType().getName());
+    for (ResultMapping mapping : resultMap.getResultMappings()) {
+      description.append('|').append(mapping.getProperty())
+          .append(',').append(mapping.getColumn())
+          .append(',').append(mapping.getJavaType() == null ? null : mapping.getJavaType().getName())
+          .append(',').append(mapping.getNestedQueryId())
+          .append(',').append(mapping.getNestedResultMapId());
+      if (mapping.getNestedResultMapId() != null && configuration.hasResultMap(mapping.getNestedResultMapId())) {
+        describe(configuration, configuration.getResultMap(mapping.getNestedResultMapId()), description, described);
+      }
+    }
+    Discriminator discriminator = resultMap.getDiscriminator();
+    if (discriminator != null) {
+      description.append("|case ").append(discriminator.getResultMapping().getColumn());
+      for (Map.Entry<String, String> entry : new TreeMap<>(discriminator.getDiscriminatorMap()).entrySet()) {
+        description.append(',').append(entry.getKey()).append('=').append(entry.getValue());
+        if (configuration.hasResultMap(entry.getValue())) {
+          describe(configuration, configuration.getResultMap(entry.getValue()), description, described);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,317 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Counters of the second level cache of a namespace, recorded by a
+ * {@link org.apache.ibatis.cache.decorators.StatisticsCache StatisticsCache} and the {@code CachingExecutor}.
+ * <p>
+ * Load times are the times spent querying the database on a miss. They are kept in a histogram of
+ * logarithmic buckets, so percentiles are accurate to about 6%.
+ * <p>
+ * Evictions are not seen by the decorator, they are estimated from puts that did not grow the cache.
+ * A put replacing an entry, e.g. the refresh of an entry about to expire, is therefore also counted.
+ *
+ * @see org.apache.ibatis.session.Configuration#getCacheStatistics(String)
+ */
+public class CacheStatistics implements CacheStatisticsMBean {
+
+  private static final Log log = LogFactory.getLog(CacheStatistics.class);
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final String id;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder removals = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder loadTime = new LongAdder();
+  private final AtomicLongArray loadTimeBuckets = new AtomicLongArray(BUCKETS);
+  private volatile int size;
+  private ObjectName objectName;
+
+  public CacheStatistics(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  public void recordHit() {
+    hits.increment();
+  }
+
+  public void recordHits(int count) {
+    hits.add(count);
+  }
+
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  public void recordMisses(int count) {
+    misses.add(count);
+  }
+
+  /**
+   * @param sizeBefore The size of the cache before the put
+   * @param sizeAfter The size of the cache after the put
+   */
+  public void recordPut(int sizeBefore, int sizeAfter) {
+    puts.increment();
+    if (sizeAfter <= sizeBefore) {
+      evictions.add(sizeBefore + 1L - sizeAfter);
+    }
+    size = sizeAfter;
+  }
+
+  /**
+   * @param count The number of entries put at once
+   * @param sizeBefore The size of the cache before the puts
+   * @param sizeAfter The size of the cache after the puts
+   */
+  public void recordPuts(int count, int sizeBefore, int sizeAfter) {
+    puts.add(count);
+    if (sizeAfter < sizeBefore + count) {
+      evictions.add((long) sizeBefore + count - sizeAfter);
+    }
+    size = sizeAfter;
+  }
+
+  public void recordRemoval(int sizeAfter) {
+    removals.increment();
+    size = sizeAfter;
+  }
+
+  public void recordFlush() {
+    flushes.increment();
+    size = 0;
+  }
+
+  /**
+   * @param nanos The time spent loading a missed entry from the database
+   */
+  public void recordLoad(long nanos) {
+    loads.increment();
+    loadTime.add(nanos);
+    loadTimeBuckets.incrementAndGet(bucketOf(Math.max(0, nanos)));
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public double getHitRatio() {
+    long hitCount = getHits();
+    long requests = hitCount + getMisses();
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+
+  @Override
+  public long getPuts() {
+    return puts.sum();
+  }
+
+  @Override
+  public long getRemovals() {
+    return removals.sum();
+  }
+
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public long getFlushes() {
+    return flushes.sum();
+  }
+
+  @Override
+  public long getLoads() {
+    return loads.sum();
+  }
+
+  @Override
+  public double getAverageLoadTime() {
+    long loadCount = getLoads();
+    return loadCount == 0 ? 0 : toMillis(loadTime.sum()) / loadCount;
+  }
+
+  @Override
+  public double getLoadTimeMedian() {
+    return getLoadTimePercentile(50);
+  }
+
+  @Override
+  public double getLoadTime95thPercentile() {
+    return getLoadTimePercentile(95);
+  }
+
+  @Override
+  public double getLoadTime99thPercentile() {
+    return getLoadTimePercentile(99);
+  }
+
+  /**
+   * @param percentile A percentile between 0 and 100
+   * @return The load time in milliseconds under which this percentage of the loads took, 0 if there was none
+   */
+  @Override
+  public double getLoadTimePercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100 but was " + percentile);
+    }
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = loadTimeBuckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return toMillis(valueOf(i));
+      }
+    }
+    return toMillis(valueOf(BUCKETS - 1));
+  }
+
+  /**
+   * @return The number of entries after the last put, removal or flush
+   */
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    puts.reset();
+    removals.reset();
+    evictions.reset();
+    flushes.reset();
+    loads.reset();
+    loadTime.reset();
+    for (int i = 0; i < BUCKETS; i++) {
+      loadTimeBuckets.set(i, 0);
+    }
+  }
+
+  /**
+   * Registers these statistics in the platform MBean server as
+   * {@code org.apache.ibatis:type=CacheStatistics,environment=<environment>,id=<id>},
+   * replacing those of a previous configuration with the same name.
+   *
+   * @param environment The id of the environment of the configuration, to tell apart the caches of several
+   *          configurations loading the same mappers, or null
+   */
+  public synchronized void registerMBean(String environment) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName name = new ObjectName("org.apache.ibatis:type=CacheStatistics,environment="
+          + ObjectName.quote(environment == null ? "default" : environment) + ",id=" + ObjectName.quote(id));
+      try {
+        server.registerMBean(this, name);
+      } catch (InstanceAlreadyExistsException e) {
+        server.unregisterMBean(name);
+        server.registerMBean(this, name);
+      }
+      objectName = name;
+    } catch (JMException e) {
+      log.warn("Could not register the statistics of cache " + id + " as an MBean.  Cause: " + e);
+    }
+  }
+
+  public synchronized void unregisterMBean() {
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException e) {
+        log.debug("Could not unregister MBean " + objectName + ".  Cause: " + e);
+      }
+      objectName = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStatistics[" + id + "] hits=" + getHits() + ", misses=" + getMisses() + ", puts=" + getPuts()
+        + ", evictions=" + getEvictions() + ", flushes=" + getFlushes() + ", size=" + getSize()
+        + ", averageLoadTime=" + getAverageLoadTime() + "ms";
+  }
+
+  static int bucketOf(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * @return The middle of the range of a bucket
+   */
+  static long valueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    int shift = exponent - SUB_BUCKET_BITS;
+    long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowest + ((1L << shift) >>> 1);
+  }
+
+  private static double toMillis(double nanos) {
+    return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+}
@@ -0,0 +1,56 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * The attributes and operations of a {@link CacheStatistics} registered as a platform MBean.
+ * Times are in milliseconds.
+ */
+public interface CacheStatisticsMBean {
+
+  String getId();
+
+  long getHits();
+
+  long getMisses();
+
+  double getHitRatio();
+
+  long getPuts();
+
+  long getRemovals();
+
+  long getEvictions();
+
+  long getFlushes();
+
+  long getLoads();
+
+  double getAverageLoadTime();
+
+  double getLoadTimeMedian();
+
+  double getLoadTime95thPercentile();
+
+  double getLoadTime99thPercentile();
+
+  double getLoadTimePercentile(double percentile);
+
+  int getSize();
+
+  void reset();
+
+}
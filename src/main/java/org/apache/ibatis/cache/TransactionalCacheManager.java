@@ -16,9 +16,13 @@
 package org.apache.ibatis.cache;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidation;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 
 /**
  * @author Clinton Begin
@@ -26,33 +30,87 @@ import org.apache.ibatis.cache.decorators.TransactionalCache;
 public class TransactionalCacheManager {
 
   private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private final CacheDependencyRegistry dependencyRegistry;
+  private final Set<String> tablesToInvalidateOnCommit = new HashSet<>();
+  private final CacheInvalidationBus invalidationBus;
+
+  public TransactionalCacheManager() {
+    this(null);
+  }
+
+  /**
+   * @param dependencyRegistry The registry entries are put through when their tables are given, may be null
+   */
+  public TransactionalCacheManager(CacheDependencyRegistry dependencyRegistry) {
+    this(dependencyRegistry, null);
+  }
+
+  /**
+   * @param invalidationBus If not null, the caches cleared and the tables invalidated are published to the other
+   *          nodes on commit
+   */
+  public TransactionalCacheManager(CacheDependencyRegistry dependencyRegistry, CacheInvalidationBus invalidationBus) {
+    this.dependencyRegistry = dependencyRegistry;
+    this.invalidationBus = invalidationBus;
+  }
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
   }
 
+  /**
+   * Invalidates on commit the entries of all caches that depend on these tables. Until then, this
+   * transaction does not read them from the caches.
+   */
+  public void invalidate(Set<String> tables) {
+    tablesToInvalidateOnCommit.addAll(tables);
+    for (TransactionalCache txCache : transactionalCaches.values()) {
+      txCache.invalidate(tables);
+    }
+  }
+
   public Object getObject(Cache cache, CacheKey key) {
     return getTransactionalCache(cache).getObject(key);
   }
 
+  public Object getObject(Cache cache, CacheKey key, Set<String> tables) {
+    Object object = getTransactionalCache(cache).getObject(key);
+    if (tables != null && CacheDependencyRegistry.dependsOn(tables, tablesToInvalidateOnCommit)) {
+      return null;
+    }
+    return object;
+  }
+
   public void putObject(Cache cache, CacheKey key, Object value) {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  public void putObject(Cache cache, CacheKey key, Object value, Set<String> tables) {
+    getTransactionalCache(cache).putObject(key, value, tables);
+  }
+
   public void commit() {
+    if (!tablesToInvalidateOnCommit.isEmpty()) {
+      dependencyRegistry.invalidate(tablesToInvalidateOnCommit);
+      if (invalidationBus != null) {
+        invalidationBus.publish(CacheInvalidation.tables(tablesToInvalidateOnCommit));
+      }
+      tablesToInvalidateOnCommit.clear();
+    }
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.commit();
     }
   }
 
   public void rollback() {
+    tablesToInvalidateOnCommit.clear();
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.rollback();
     }
   }
 
   private TransactionalCache getTransactionalCache(Cache cache) {
-    return transactionalCaches.computeIfAbsent(cache, TransactionalCache::new);
+    return transactionalCaches.computeIfAbsent(cache, k -> new TransactionalCache(k, dependencyRegistry, invalidationBus));
   }
 
 }
@@ -15,9 +15,12 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
@@ -29,6 +32,11 @@ import org.apache.ibatis.cache.CacheException;
  * Simple and inefficient version of EhCache's BlockingCache decorator.
  * It sets a lock over a cache key when the element is not found in cache.
  * This way, other threads will wait until this element is filled instead of hitting the database.
+ * <p>
+ * In single flight mode, the first miss on a key registers a load that is not owned by a thread, and
+ * concurrent misses wait for the value it is completed with when it is put. So the value can be put
+ * by any thread, as asynchronous callers do. In both modes, locks and loads are removed as soon as they
+ * are released and waits can be interrupted or bounded by {@code timeout}.
  *
  * @author Eduardo Macarron
  *
@@ -36,12 +44,15 @@ import org.apache.ibatis.cache.CacheException;
 public class BlockingCache implements Cache {
 
   private long timeout;
+  private boolean singleFlight;
   private final Cache delegate;
   private final ConcurrentHashMap<Object, ReentrantLock> locks;
+  private final ConcurrentHashMap<Object, Load> loads;
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
     this.locks = new ConcurrentHashMap<>();
+    this.loads = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -59,12 +70,34 @@ public class BlockingCache implements Cache {
     try {
       delegate.putObject(key, value);
     } finally {
-      releaseLock(key);
+      if (singleFlight) {
+        completeLoad(key, value);
+      } else {
+        releaseLock(key);
+      }
+    }
+  }
+
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    try {
+      delegate.putObjects(objects);
+    } finally {
+      for (Map.Entry<?, ?> entry : objects.entrySet()) {
+        if (singleFlight) {
+          completeLoad(entry.getKey(), entry.getValue());
+        } else {
+          releaseLock(entry.getKey());
+        }
+      }
     }
   }
 
   @Override
   public Object getObject(Object key) {
+    if (singleFlight) {
+      return getObjectOrStartLoad(key);
+    }
     acquireLock(key);
     Object value = delegate.getObject(key);
     if (value != null) {
@@ -75,9 +108,21 @@ public class BlockingCache implements Cache {
 
   @Override
   public Object removeObject(Object key) {
-    // despite of its name, this method is called only to release locks
-    releaseLock(key);
-    return null;
+    if (singleFlight) {
+      // releases the load of a missed entry on rollback, waiters will try again once the entry is gone, so that the
+      // value one of them loads again is not removed
+      Object value = delegate.removeObject(key);
+      completeLoad(key, null);
+      return value;
+    }
+    ReentrantLock lock = locks.get(key);
+    if (lock != null && lock.isHeldByCurrentThread()) {
+      // called by a rollback to release the lock of a missed entry
+      releaseLock(key);
+      return null;
+    }
+    // called to invalidate an entry that depends on a written table
+    return delegate.removeObject(key);
   }
 
   @Override
@@ -85,30 +130,88 @@ public class BlockingCache implements Cache {
     delegate.clear();
   }
 
-  private ReentrantLock getLockForKey(Object key) {
-    return locks.computeIfAbsent(key, k -> new ReentrantLock());
+  private Object getObjectOrStartLoad(Object key) {
+    while (true) {
+      Object value = delegate.getObject(key);
+      if (value != null) {
+        return value;
+      }
+      Load load = new Load();
+      Load pending = loads.putIfAbsent(key, load);
+      if (pending == null) {
+        // the caller now has to load the value and put it, or remove the key
+        return null;
+      }
+      if (pending.owner == Thread.currentThread()) {
+        // the same thread missed twice before putting, as it could with a reentrant lock
+        return null;
+      }
+      value = awaitLoad(key, pending);
+      if (value != null) {
+        return value;
+      }
+    }
+  }
+
+  private Object awaitLoad(Object key, Load load) {
+    try {
+      if (timeout > 0) {
+        return load.get(timeout, TimeUnit.MILLISECONDS);
+      }
+      return load.get();
+    } catch (TimeoutException e) {
+      // do not let a load that was never completed block this key forever
+      if (loads.remove(key, load)) {
+        load.complete(null);
+      }
+      throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Got interrupted while waiting for the load of key " + key, e);
+    } catch (ExecutionException e) {
+      throw new CacheException("Error loading key " + key + ".  Cause: " + e.getCause(), e.getCause());
+    }
+  }
+
+  private void completeLoad(Object key, Object value) {
+    Load load = loads.remove(key);
+    if (load != null) {
+      load.complete(value);
+    }
   }
 
   private void acquireLock(Object key) {
-    Lock lock = getLockForKey(key);
-    if (timeout > 0) {
+    while (true) {
+      ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
       try {
-        boolean acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
-        if (!acquired) {
-          throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
+        if (timeout > 0) {
+          boolean acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+          if (!acquired) {
+            throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
+          }
+        } else {
+          lock.lockInterruptibly();
         }
       } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
         throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
       }
-    } else {
-      lock.lock();
+      // read under the lock of the map entry, so that a removal checking that the lock is free is either seen or
+      // sees this thread holding it
+      if (locks.computeIfPresent(key, (k, current) -> current) == lock) {
+        return;
+      }
+      // the lock was released and removed while this thread was acquiring it
+      lock.unlock();
     }
   }
 
   private void releaseLock(Object key) {
     ReentrantLock lock = locks.get(key);
-    if (lock.isHeldByCurrentThread()) {
+    if (lock != null && lock.isHeldByCurrentThread()) {
       lock.unlock();
+      // removed atomically, and only while no other thread holds or waits for it
+      locks.computeIfPresent(key, (k, current) -> current == lock && !current.isLocked() && !current.hasQueuedThreads() ? null : current);
     }
   }
 
@@ -119,4 +222,26 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  public boolean isSingleFlight() {
+    return singleFlight;
+  }
+
+  /**
+   * @param singleFlight Whether concurrent misses wait for a shared load instead of a lock owned by the missing thread
+   */
+  public void setSingleFlight(boolean singleFlight) {
+    this.singleFlight = singleFlight;
+  }
+
+  /**
+   * Number of keys currently locked or loading.
+   */
+  public int getPendingCount() {
+    return locks.size() + loads.size();
+  }
+
+  private static final class Load extends CompletableFuture<Object> {
+    private final Thread owner = Thread.currentThread();
+  }
 }
@@ -0,0 +1,261 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Expires each entry on its own, a time to live after it was put.
+ * <p>
+ * Unlike {@link ScheduledCache}, which clears the whole cache at once, entries put together do not
+ * expire together: each time to live is shortened by a random jitter (10% by default).
+ * <p>
+ * With {@code refreshAhead} set, the first hit on an entry that expires within that many milliseconds
+ * made inside a {@link #openRefreshClaim() refresh claim} claims a refresh. The caller (the {@code CachingExecutor})
+ * then reloads the entry in the background, while the current value is still served until the new one is put.
+ * Hits outside of a refresh claim never claim a refresh.
+ *
+ * @see org.apache.ibatis.executor.CachingExecutor
+ */
+public class ExpiringCache implements Cache {
+
+  private static final Log log = LogFactory.getLog(ExpiringCache.class);
+
+  private static final ThreadLocal<RefreshClaim> openClaim = new ThreadLocal<>();
+  private static final ThreadPoolExecutor refreshExecutor = newRefreshExecutor();
+
+  private final Cache delegate;
+  private long timeToLive;
+  private double jitter;
+  private long refreshAhead;
+
+  public ExpiringCache(Cache delegate) {
+    this.delegate = delegate;
+    this.timeToLive = TimeUnit.HOURS.toMillis(1);
+    this.jitter = 0.1;
+  }
+
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * @param jitter Up to which fraction of the time to live is randomly taken off each entry
+   */
+  public void setJitter(double jitter) {
+    this.jitter = jitter;
+  }
+
+  /**
+   * @param refreshAhead How many milliseconds before it expires a hit entry is reloaded, 0 (the default) to disable
+   */
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  /**
+   * Lets the next {@link #getObject(Object)} of the current thread claim the refresh of the entry it hits, until the
+   * returned claim is closed.
+   * <p>
+   * The caller must either {@link Refresh#submit(Runnable) submit} or {@link Refresh#release() release} the claimed
+   * refresh, if any.
+   *
+   * @return The claim, to close once the entry was read
+   */
+  public static RefreshClaim openRefreshClaim() {
+    RefreshClaim claim = new RefreshClaim(openClaim.get());
+    openClaim.set(claim);
+    return claim;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value == null) {
+      delegate.putObject(key, null);
+      return;
+    }
+    long ttl = timeToLive;
+    if (jitter > 0) {
+      ttl -= (long) (ttl * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+    delegate.putObject(key, new Entry(value, System.currentTimeMillis() + ttl));
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (!(value instanceof Entry)) {
+      return value;
+    }
+    Entry entry = (Entry) value;
+    long now = System.currentTimeMillis();
+    if (now >= entry.expiresAt) {
+      delegate.removeObject(key);
+      return null;
+    }
+    if (refreshAhead > 0 && now >= entry.expiresAt - refreshAhead) {
+      RefreshClaim claim = openClaim.get();
+      if (claim != null && claim.refresh == null && entry.claimRefresh()) {
+        claim.refresh = new Refresh(entry);
+      }
+    }
+    return entry.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Object value = delegate.removeObject(key);
+    return value instanceof Entry ? ((Entry) value).value : value;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private static ThreadPoolExecutor newRefreshExecutor() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(1024), runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-cache-refresh-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static final class Entry {
+    private final Object value;
+    private final long expiresAt;
+    private boolean refreshing;
+
+    Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    synchronized boolean claimRefresh() {
+      if (refreshing) {
+        return false;
+      }
+      refreshing = true;
+      return true;
+    }
+
+    synchronized void releaseRefresh() {
+      refreshing = false;
+    }
+  }
+
+  /**
+   * The scope in which a thread may claim the refresh of an entry it reads.
+   */
+  public static final class RefreshClaim implements AutoCloseable {
+    private final RefreshClaim outer;
+    private Refresh refresh;
+
+    private RefreshClaim(RefreshClaim outer) {
+      this.outer = outer;
+    }
+
+    /**
+     * @return The refresh claimed in this scope or null
+     */
+    public Refresh getRefresh() {
+      return refresh;
+    }
+
+    @Override
+    public void close() {
+      if (outer != null) {
+        openClaim.set(outer);
+      } else {
+        openClaim.remove();
+      }
+    }
+  }
+
+  /**
+   * A pending reload of an entry that is about to expire.
+   */
+  public static final class Refresh {
+    private final Entry entry;
+
+    private Refresh(Entry entry) {
+      this.entry = entry;
+    }
+
+    /**
+     * Runs the loader in the background. The loader is expected to put the reloaded value in the cache.
+     *
+     * @param loader The reload
+     */
+    public void submit(Runnable loader) {
+      try {
+        refreshExecutor.execute(() -> {
+          try {
+            loader.run();
+          } catch (Exception e) {
+            log.warn("Refresh ahead of a cache entry failed, it will expire.  Cause: " + e);
+          } finally {
+            entry.releaseRefresh();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        entry.releaseRefresh();
+      }
+    }
+
+    /**
+     * Gives up the refresh, a later hit may claim it again.
+     */
+    public void release() {
+      entry.releaseRefresh();
+    }
+  }
+
+}
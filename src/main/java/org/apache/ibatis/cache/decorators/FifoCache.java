@@ -16,9 +16,14 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.weigher.DefaultWeigher;
+import org.apache.ibatis.cache.weigher.Weigher;
+import org.apache.ibatis.cache.weigher.Weighers;
 
 /**
  * FIFO (first in, first out) cache decorator.
@@ -30,11 +35,17 @@ public class FifoCache implements Cache {
   private final Cache delegate;
   private final Deque<Object> keyList;
   private int size;
+  private final Map<Object, Long> weights;
+  private long maxBytes;
+  private long totalWeight;
+  private Weigher weigher;
 
   public FifoCache(Cache delegate) {
     this.delegate = delegate;
     this.keyList = new LinkedList<>();
     this.size = 1024;
+    this.weights = new HashMap<>();
+    this.weigher = new DefaultWeigher();
   }
 
   @Override
@@ -51,10 +62,30 @@ public class FifoCache implements Cache {
     this.size = size;
   }
 
+  /**
+   * Also evicts the oldest entries while the estimated size of all entries exceeds this budget.
+   *
+   * @param maxBytes The memory budget in bytes, 0 (the default) for none
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void setWeigher(String weigher) {
+    this.weigher = Weighers.forName(weigher);
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     cycleKeyList(key);
     delegate.putObject(key, value);
+    if (maxBytes > 0) {
+      Long previous = weights.put(key, weigher.weigh(key, value));
+      totalWeight += weights.get(key) - (previous == null ? 0 : previous);
+      while (totalWeight > maxBytes && !keyList.isEmpty()) {
+        removeOldest();
+      }
+    }
   }
 
   @Override
@@ -64,6 +95,10 @@ public class FifoCache implements Cache {
 
   @Override
   public Object removeObject(Object key) {
+    Long weight = weights.remove(key);
+    if (weight != null) {
+      totalWeight -= weight;
+    }
     return delegate.removeObject(key);
   }
 
@@ -71,14 +106,24 @@ public class FifoCache implements Cache {
   public void clear() {
     delegate.clear();
     keyList.clear();
+    weights.clear();
+    totalWeight = 0;
   }
 
   private void cycleKeyList(Object key) {
     keyList.addLast(key);
     if (keyList.size() > size) {
-      Object oldestKey = keyList.removeFirst();
-      delegate.removeObject(oldestKey);
+      removeOldest();
+    }
+  }
+
+  private void removeOldest() {
+    Object oldestKey = keyList.removeFirst();
+    Long weight = weights.remove(oldestKey);
+    if (weight != null) {
+      totalWeight -= weight;
     }
+    delegate.removeObject(oldestKey);
   }
 
 }
@@ -15,6 +15,10 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -26,8 +30,9 @@ public class LoggingCache implements Cache {
 
   private final Log log;
   private final Cache delegate;
-  protected int requests = 0;
-  protected int hits = 0;
+  // counted without a lock, as a thread safe cache is not wrapped in a SynchronizedCache
+  protected final LongAdder requests = new LongAdder();
+  protected final LongAdder hits = new LongAdder();
 
   public LoggingCache(Cache delegate) {
     this.delegate = delegate;
@@ -51,10 +56,10 @@ public class LoggingCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
-    requests++;
+    requests.increment();
     final Object value = delegate.getObject(key);
     if (value != null) {
-      hits++;
+      hits.increment();
     }
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
@@ -62,6 +67,22 @@ public class LoggingCache implements Cache {
     return value;
   }
 
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    delegate.putObjects(objects);
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    requests.add(keys.size());
+    final Map<Object, Object> objects = delegate.getObjects(keys);
+    hits.add(objects.size());
+    if (log.isDebugEnabled()) {
+      log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
+    }
+    return objects;
+  }
+
   @Override
   public Object removeObject(Object key) {
     return delegate.removeObject(key);
@@ -83,7 +104,7 @@ public class LoggingCache implements Cache {
   }
 
   private double getHitRatio() {
-    return (double) hits / (double) requests;
+    return (double) hits.sum() / (double) requests.sum();
   }
 
 }
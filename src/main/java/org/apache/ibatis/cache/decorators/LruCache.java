@@ -15,10 +15,15 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.weigher.DefaultWeigher;
+import org.apache.ibatis.cache.weigher.Weigher;
+import org.apache.ibatis.cache.weigher.Weighers;
 
 /**
  * Lru (least recently used) cache decorator.
@@ -30,9 +35,13 @@ public class LruCache implements Cache {
   private final Cache delegate;
   private Map<Object, Object> keyMap;
   private Object eldestKey;
+  private long maxBytes;
+  private long totalWeight;
+  private Weigher weigher;
 
   public LruCache(Cache delegate) {
     this.delegate = delegate;
+    this.weigher = new DefaultWeigher();
     setSize(1024);
   }
 
@@ -55,17 +64,32 @@ public class LruCache implements Cache {
         boolean tooBig = size() > size;
         if (tooBig) {
           eldestKey = eldest.getKey();
+          totalWeight -= weightOf(eldest.getValue());
         }
         return tooBig;
       }
     };
+    totalWeight = 0;
+  }
+
+  /**
+   * Also evicts the least recently used entries while the estimated size of all entries exceeds this budget.
+   *
+   * @param maxBytes The memory budget in bytes, 0 (the default) for none
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void setWeigher(String weigher) {
+    this.weigher = Weighers.forName(weigher);
   }
 
   /*回收的时机：putObject()方法调用的时候*/
   @Override
   public void putObject(Object key, Object value) {
     delegate.putObject(key, value);
-    cycleKeyList(key);
+    cycleKeyList(key, value);
   }
 
   @Override
@@ -74,8 +98,27 @@ public class LruCache implements Cache {
     return delegate.getObject(key);
   }
 
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    delegate.putObjects(objects);
+    for (Map.Entry<?, ?> entry : objects.entrySet()) {
+      cycleKeyList(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    for (Object key : keys) {
+      keyMap.get(key); //touch
+    }
+    return delegate.getObjects(keys);
+  }
+
   @Override
   public Object removeObject(Object key) {
+    if (maxBytes > 0) {
+      totalWeight -= weightOf(keyMap.remove(key));
+    }
     return delegate.removeObject(key);
   }
 
@@ -83,14 +126,34 @@ public class LruCache implements Cache {
   public void clear() {
     delegate.clear();
     keyMap.clear();
+    totalWeight = 0;
   }
 
-  private void cycleKeyList(Object key) {
-    keyMap.put(key, key);
+  private void cycleKeyList(Object key, Object value) {
+    if (maxBytes > 0) {
+      long weight = weigher.weigh(key, value);
+      totalWeight += weight - weightOf(keyMap.put(key, weight));
+    } else {
+      keyMap.put(key, key);
+    }
     if (eldestKey != null) {
       delegate.removeObject(eldestKey);
       eldestKey = null;
     }
+    if (maxBytes > 0) {
+      Iterator<Map.Entry<Object, Object>> iterator = keyMap.entrySet().iterator();
+      while (totalWeight > maxBytes && iterator.hasNext()) {
+        Map.Entry<Object, Object> eldest = iterator.next();
+        iterator.remove();
+        totalWeight -= weightOf(eldest.getValue());
+        delegate.removeObject(eldest.getKey());
+      }
+    }
+  }
+
+  private long weightOf(Object keyMapValue) {
+    // the key map holds the weights only when a memory budget is set
+    return maxBytes > 0 && keyMapValue != null ? (Long) keyMapValue : 0;
   }
 
 }
@@ -0,0 +1,189 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Caches selects that returned nothing apart from the other entries, with their own time to live and size.
+ * <p>
+ * An empty result is not put in the delegate, and removes any earlier result of its key from there. Its key is
+ * kept here until it expires or until the least recently used ones exceed {@code negativeSize}, so a key that
+ * keeps missing is answered from memory while it cannot push results out of the delegate nor outlive a row
+ * inserted later by another node.
+ * Flushing the cache or removing the key drops the negative entry as well.
+ */
+public class NegativeResultCache implements Cache {
+
+  private final Cache delegate;
+  private final Map<Object, Long> absentKeys;
+  private long negativeTimeToLive;
+  private int negativeSize;
+
+  public NegativeResultCache(Cache delegate) {
+    this.delegate = delegate;
+    this.negativeTimeToLive = TimeUnit.MINUTES.toMillis(1);
+    this.negativeSize = 1024;
+    this.absentKeys = new LinkedHashMap<Object, Long>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) {
+        return size() > negativeSize;
+      }
+    };
+  }
+
+  /**
+   * @param negativeTimeToLive How many milliseconds an empty result is kept
+   */
+  public void setNegativeTimeToLive(long negativeTimeToLive) {
+    this.negativeTimeToLive = negativeTimeToLive;
+  }
+
+  /**
+   * @param negativeSize How many empty results are kept at most
+   */
+  public void setNegativeSize(int negativeSize) {
+    this.negativeSize = negativeSize;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    synchronized (absentKeys) {
+      return delegate.getSize() + absentKeys.size();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (isEmptyResult(value)) {
+      markAbsent(key);
+    } else {
+      forget(key);
+      delegate.putObject(key, value);
+    }
+  }
+
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    Map<Object, Object> present = new LinkedHashMap<>();
+    for (Map.Entry<?, ?> entry : objects.entrySet()) {
+      if (isEmptyResult(entry.getValue())) {
+        markAbsent(entry.getKey());
+      } else {
+        forget(entry.getKey());
+        present.put(entry.getKey(), entry.getValue());
+      }
+    }
+    if (!present.isEmpty()) {
+      delegate.putObjects(present);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    if (isAbsent(key)) {
+      return new ArrayList<>();
+    }
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    Map<Object, Object> found = new LinkedHashMap<>();
+    Collection<Object> remaining = new ArrayList<>(keys.size());
+    for (Object key : keys) {
+      if (isAbsent(key)) {
+        found.put(key, new ArrayList<>());
+      } else {
+        remaining.add(key);
+      }
+    }
+    if (!remaining.isEmpty()) {
+      found.putAll(delegate.getObjects(remaining));
+    }
+    return found;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    forget(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    synchronized (absentKeys) {
+      absentKeys.clear();
+    }
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private boolean isEmptyResult(Object value) {
+    return value instanceof Collection && ((Collection<?>) value).isEmpty();
+  }
+
+  private void markAbsent(Object key) {
+    synchronized (absentKeys) {
+      absentKeys.put(key, System.currentTimeMillis() + negativeTimeToLive);
+    }
+    // a result of the key loaded before must not be served again once the empty one expires
+    delegate.removeObject(key);
+  }
+
+  private void forget(Object key) {
+    synchronized (absentKeys) {
+      absentKeys.remove(key);
+    }
+  }
+
+  private boolean isAbsent(Object key) {
+    synchronized (absentKeys) {
+      Long expiresAt = absentKeys.get(key);
+      if (expiresAt == null) {
+        return false;
+      }
+      if (System.currentTimeMillis() >= expiresAt) {
+        absentKeys.remove(key);
+        return false;
+      }
+      return true;
+    }
+  }
+
+}
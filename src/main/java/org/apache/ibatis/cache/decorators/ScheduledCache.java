@@ -17,6 +17,9 @@ package org.apache.ibatis.cache.decorators;
 
 import org.apache.ibatis.cache.Cache;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -60,6 +63,17 @@ public class ScheduledCache implements Cache {
     return clearWhenStale() ? null : delegate.getObject(key);
   }
 
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    clearWhenStale();
+    delegate.putObjects(objects);
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    return clearWhenStale() ? Collections.emptyMap() : delegate.getObjects(keys);
+  }
+
   @Override
   public Object removeObject(Object key) {
     clearWhenStale();
@@ -15,17 +15,21 @@
  */
 package org.apache.ibatis.cache.decorators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.serializer.CompressingSerializer;
+import org.apache.ibatis.cache.serializer.JavaSerializer;
+import org.apache.ibatis.cache.serializer.Serializer;
+import org.apache.ibatis.cache.serializer.Serializers;
 import org.apache.ibatis.io.Resources;
 
 /**
@@ -34,9 +38,27 @@ import org.apache.ibatis.io.Resources;
 public class SerializedCache implements Cache {
 
   private final Cache delegate;
+  private Serializer serializer;
+  private boolean compress;
+  private Serializer codec;
 
   public SerializedCache(Cache delegate) {
     this.delegate = delegate;
+    this.serializer = new JavaSerializer();
+    this.codec = serializer;
+  }
+
+  /**
+   * @param serializer {@code JAVA} (default), {@code COMPACT} or the class name of a {@link Serializer}
+   */
+  public void setSerializer(String serializer) {
+    this.serializer = Serializers.forName(serializer);
+    this.codec = compress ? new CompressingSerializer(this.serializer) : this.serializer;
+  }
+
+  public void setCompress(boolean compress) {
+    this.compress = compress;
+    this.codec = compress ? new CompressingSerializer(serializer) : serializer;
   }
 
   @Override
@@ -52,7 +74,7 @@ public class SerializedCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     if (object == null || object instanceof Serializable) {
-      delegate.putObject(key, serialize((Serializable) object));
+      delegate.putObject(key, codec.serialize(object));
     } else {
       throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
     }
@@ -61,7 +83,30 @@ public class SerializedCache implements Cache {
   @Override
   public Object getObject(Object key) {
     Object object = delegate.getObject(key);
-    return object == null ? null : deserialize((byte[]) object);
+    return object == null ? null : codec.deserialize((byte[]) object);
+  }
+
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    Map<Object, Object> serialized = new LinkedHashMap<>();
+    for (Map.Entry<?, ?> entry : objects.entrySet()) {
+      Object object = entry.getValue();
+      if (object == null || object instanceof Serializable) {
+        serialized.put(entry.getKey(), codec.serialize(object));
+      } else {
+        throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
+      }
+    }
+    delegate.putObjects(serialized);
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    Map<Object, Object> objects = delegate.getObjects(keys);
+    for (Map.Entry<Object, Object> entry : objects.entrySet()) {
+      entry.setValue(codec.deserialize((byte[]) entry.getValue()));
+    }
+    return objects;
   }
 
   @Override
@@ -84,28 +129,6 @@ public class SerializedCache implements Cache {
     return delegate.equals(obj);
   }
 
-  private byte[] serialize(Serializable value) {
-    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-         ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-      oos.writeObject(value);
-      oos.flush();
-      return bos.toByteArray();
-    } catch (Exception e) {
-      throw new CacheException("Error serializing object.  Cause: " + e, e);
-    }
-  }
-
-  private Serializable deserialize(byte[] value) {
-    Serializable result;
-    try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
-         ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-      result = (Serializable) ois.readObject();
-    } catch (Exception e) {
-      throw new CacheException("Error deserializing object.  Cause: " + e, e);
-    }
-    return result;
-  }
-
   public static class CustomObjectInputStream extends ObjectInputStream {
 
     public CustomObjectInputStream(InputStream in) throws IOException {
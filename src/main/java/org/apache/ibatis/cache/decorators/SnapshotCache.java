@@ -0,0 +1,182 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSnapshot;
+
+/**
+ * Tracks the most recently used keys of a cache, whose entries a {@link CacheSnapshot} writes to disk.
+ * <p>
+ * Added by the {@code CacheBuilder} above the {@link SerializedCache} when the {@code snapshotFile} property is set.
+ * As the snapshot is written from a background thread, the delegate must be thread safe: the {@code CacheBuilder}
+ * wraps it in a {@link SynchronizedCache} unless it is. The keys are tracked without locking, with the time they were
+ * last used at a millisecond resolution.
+ */
+public class SnapshotCache implements Cache {
+
+  private static final long TOUCH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Cache delegate;
+  private final CacheSnapshot snapshot;
+  private final ConcurrentHashMap<Object, Long> hotKeys = new ConcurrentHashMap<>();
+  private final AtomicBoolean trimming = new AtomicBoolean();
+
+  public SnapshotCache(Cache delegate, CacheSnapshot snapshot) {
+    this.delegate = delegate;
+    this.snapshot = snapshot;
+    snapshot.attach(this);
+  }
+
+  public CacheSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * @return The cached entries of the tracked keys, the most recently used first
+   */
+  public Map<Object, Object> getHotEntries() {
+    List<Map.Entry<Object, Long>> keys = getKeysByRecency();
+    keys = keys.subList(0, Math.min(keys.size(), snapshot.getSnapshotSize()));
+    List<Object> hottest = new ArrayList<>(keys.size());
+    for (Map.Entry<Object, Long> key : keys) {
+      hottest.add(key.getKey());
+    }
+    Map<Object, Object> entries = delegate.getObjects(hottest);
+    for (Map.Entry<Object, Long> key : keys) {
+      // an entry gone from the delegate, e.g. evicted, is no longer tracked
+      if (!entries.containsKey(key.getKey())) {
+        hotKeys.remove(key.getKey(), key.getValue());
+      }
+    }
+    return entries;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+    track(key, value);
+  }
+
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    delegate.putObjects(objects);
+    for (Map.Entry<?, ?> entry : objects.entrySet()) {
+      track(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    track(key, value);
+    return value;
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    Map<Object, Object> found = delegate.getObjects(keys);
+    for (Object key : keys) {
+      track(key, found.get(key));
+    }
+    return found;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    hotKeys.remove(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    hotKeys.clear();
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private void track(Object key, Object value) {
+    if (value == null) {
+      hotKeys.remove(key);
+      return;
+    }
+    long now = System.nanoTime();
+    Long touched = hotKeys.get(key);
+    // a key used again within the interval is not written again, so that hits on a hot key do not contend
+    if (touched == null || now - touched > TOUCH_INTERVAL) {
+      hotKeys.put(key, now);
+      if (touched == null && hotKeys.size() > 2 * snapshot.getSnapshotSize()) {
+        trim();
+      }
+    }
+  }
+
+  /**
+   * Drops the least recently used keys beyond the snapshot size, one thread at a time.
+   */
+  private void trim() {
+    if (!trimming.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      List<Map.Entry<Object, Long>> keys = getKeysByRecency();
+      for (Map.Entry<Object, Long> key : keys.subList(Math.min(keys.size(), snapshot.getSnapshotSize()), keys.size())) {
+        // a key used since it was read is kept
+        hotKeys.remove(key.getKey(), key.getValue());
+      }
+    } finally {
+      trimming.set(false);
+    }
+  }
+
+  private List<Map.Entry<Object, Long>> getKeysByRecency() {
+    List<Map.Entry<Object, Long>> keys = new ArrayList<>(hotKeys.size());
+    for (Map.Entry<Object, Long> key : hotKeys.entrySet()) {
+      keys.add(new AbstractMap.SimpleImmutableEntry<>(key.getKey(), key.getValue()));
+    }
+    keys.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+    return keys;
+  }
+
+}
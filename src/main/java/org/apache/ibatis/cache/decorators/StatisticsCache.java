@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatistics;
+
+/**
+ * Records hits, misses, puts, removals, flushes and estimated evictions in a {@link CacheStatistics}.
+ * <p>
+ * Added by the {@code CacheBuilder} under the {@link SynchronizedCache} when the {@code cacheStatisticsEnabled}
+ * setting is on, so that the size of the cache before and after a put are consistent.
+ */
+public class StatisticsCache implements Cache {
+
+  private final Cache delegate;
+  private final CacheStatistics statistics;
+
+  public StatisticsCache(Cache delegate) {
+    this(delegate, new CacheStatistics(delegate.getId()));
+  }
+
+  public StatisticsCache(Cache delegate, CacheStatistics statistics) {
+    this.delegate = delegate;
+    this.statistics = statistics;
+  }
+
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    int sizeBefore = delegate.getSize();
+    delegate.putObject(key, value);
+    statistics.recordPut(sizeBefore, delegate.getSize());
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (value != null) {
+      statistics.recordHit();
+    } else {
+      statistics.recordMiss();
+    }
+    return value;
+  }
+
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    int sizeBefore = delegate.getSize();
+    delegate.putObjects(objects);
+    statistics.recordPuts(objects.size(), sizeBefore, delegate.getSize());
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    Map<Object, Object> objects = delegate.getObjects(keys);
+    statistics.recordHits(objects.size());
+    statistics.recordMisses(keys.size() - objects.size());
+    return objects;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Object value = delegate.removeObject(key);
+    statistics.recordRemoval(delegate.getSize());
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    statistics.recordFlush();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+}
@@ -17,10 +17,15 @@ package org.apache.ibatis.cache.decorators;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheDependencyRegistry;
+import org.apache.ibatis.cache.invalidation.CacheInvalidation;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -48,12 +53,29 @@ public class TransactionalCache implements Cache {
   //错误修改
   //未命中的缓存集合，用于统计缓存命中率
   private final Set<Object> entriesMissedInCache;
+  private final CacheDependencyRegistry dependencyRegistry;
+  private final Map<Object, Set<String>> dependenciesToAddOnCommit;
+  private final CacheInvalidationBus invalidationBus;
 
   public TransactionalCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  public TransactionalCache(Cache delegate, CacheDependencyRegistry dependencyRegistry) {
+    this(delegate, dependencyRegistry, null);
+  }
+
+  /**
+   * @param invalidationBus If not null, a clear of the cache is published to the other nodes on commit
+   */
+  public TransactionalCache(Cache delegate, CacheDependencyRegistry dependencyRegistry, CacheInvalidationBus invalidationBus) {
     this.delegate = delegate;
+    this.invalidationBus = invalidationBus;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.dependencyRegistry = dependencyRegistry;
+    this.dependenciesToAddOnCommit = new HashMap<>();
   }
 
   @Override
@@ -88,6 +110,30 @@ public class TransactionalCache implements Cache {
     entriesToAddOnCommit.put(key, object);
   }
 
+  /**
+   * Puts an entry that, once committed, is registered as depending on these tables.
+   */
+  public void putObject(Object key, Object object, Set<String> tables) {
+    entriesToAddOnCommit.put(key, object);
+    if (tables != null && dependencyRegistry != null) {
+      dependenciesToAddOnCommit.put(key, tables);
+    }
+  }
+
+  /**
+   * Discards the pending entries that depend on these tables, as they were read before this transaction wrote them.
+   */
+  public void invalidate(Set<String> tables) {
+    Iterator<Map.Entry<Object, Set<String>>> dependencies = dependenciesToAddOnCommit.entrySet().iterator();
+    while (dependencies.hasNext()) {
+      Map.Entry<Object, Set<String>> dependency = dependencies.next();
+      if (CacheDependencyRegistry.dependsOn(dependency.getValue(), tables)) {
+        entriesToAddOnCommit.remove(dependency.getKey());
+        dependencies.remove();
+      }
+    }
+  }
+
   @Override
   public Object removeObject(Object key) {
     return null;
@@ -97,11 +143,15 @@ public class TransactionalCache implements Cache {
   public void clear() {
     clearOnCommit = true;
     entriesToAddOnCommit.clear();
+    dependenciesToAddOnCommit.clear();
   }
 
   public void commit() {
     if (clearOnCommit) {
       delegate.clear();
+      if (invalidationBus != null) {
+        invalidationBus.publish(CacheInvalidation.clear(getId()));
+      }
     }
     flushPendingEntries();
     reset();
@@ -116,19 +166,26 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    dependenciesToAddOnCommit.clear();
   }
 
   private void flushPendingEntries() {
-    for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      //put到真实缓存
-      delegate.putObject(entry.getKey(), entry.getValue());
-    }
+    //put到真实缓存，一次批量写入
+    Map<Object, Object> entries = new LinkedHashMap<>(entriesToAddOnCommit);
     for (Object entry : entriesMissedInCache) {
       //也会把未命中的一起put
-      if (!entriesToAddOnCommit.containsKey(entry)) {
-        delegate.putObject(entry, null);
+      if (!entries.containsKey(entry)) {
+        entries.put(entry, null);
       }
     }
+    if (entries.isEmpty()) {
+      return;
+    }
+    if (dependenciesToAddOnCommit.isEmpty()) {
+      delegate.putObjects(entries);
+    } else {
+      dependencyRegistry.putObjects(delegate, entries, dependenciesToAddOnCommit);
+    }
   }
 
   private void unlockMissedEntries() {
@@ -0,0 +1,394 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.serializer.CompressingSerializer;
+import org.apache.ibatis.cache.serializer.JavaSerializer;
+import org.apache.ibatis.cache.serializer.Serializer;
+import org.apache.ibatis.cache.serializer.Serializers;
+
+/**
+ * Cache that keeps serialized entries outside of the Java heap.
+ * <p>
+ * Entries are appended to a ring of fixed size slabs, allocated as direct buffers or, when a
+ * {@code file} is configured, mapped from that file. The heap only holds an index from each key
+ * to the position of its record. Once the ring is full the oldest records are overwritten, so the
+ * cache is bounded by {@code capacity} in bytes rather than by a number of entries.
+ * <p>
+ * A file backed cache re-reads its index on startup, so entries survive a restart.
+ *
+ * <pre>
+ * &lt;cache type="org.apache.ibatis.cache.impl.OffHeapCache"&gt;
+ *   &lt;property name="capacity" value="1073741824"/&gt;
+ *   &lt;property name="file" value="/var/cache/app/users.cache"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ */
+public class OffHeapCache implements Cache, InitializingObject {
+
+  private static final int FILE_MAGIC = 0x4d424f48;
+  private static final int FILE_VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+
+  private static final int LIVE_RECORD = 0x4c495645;
+  private static final int DELETED_RECORD = 0x44454144;
+  private static final int PADDING = 0x50414444;
+  private static final int RECORD_HEADER_SIZE = 12;
+
+  private final String id;
+  private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+  private final Map<Object, Entry> index = new HashMap<>();
+  private final Deque<Entry> writeOrder = new ArrayDeque<>();
+
+  private long capacity = 64L * 1024 * 1024;
+  private int slabSize = 16 * 1024 * 1024;
+  private String file;
+  private Serializer serializer = new JavaSerializer();
+  private boolean compress;
+  private Serializer codec = serializer;
+  private final Serializer keySerializer = new JavaSerializer();
+
+  private ByteBuffer header;
+  private ByteBuffer[] slabs;
+  private long head;
+  private long tail;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  public void setCapacity(long capacity) {
+    this.capacity = capacity;
+  }
+
+  public void setSlabSize(int slabSize) {
+    this.slabSize = slabSize;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  /**
+   * @param serializer {@code JAVA} (default), {@code COMPACT} or the class name of a {@link Serializer}
+   */
+  public void setSerializer(String serializer) {
+    this.serializer = Serializers.forName(serializer);
+    this.codec = compress ? new CompressingSerializer(this.serializer) : this.serializer;
+  }
+
+  public void setCompress(boolean compress) {
+    this.compress = compress;
+    this.codec = compress ? new CompressingSerializer(serializer) : serializer;
+  }
+
+  @Override
+  public void initialize() throws IOException {
+    if (capacity <= 0 || slabSize <= RECORD_HEADER_SIZE) {
+      throw new CacheException("OffHeapCache '" + id + "' requires a positive capacity and slabSize.");
+    }
+    readWriteLock.writeLock().lock();
+    try {
+      if (slabs == null) {
+        allocate();
+      }
+    } finally {
+      readWriteLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    readWriteLock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      readWriteLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value != null && !(value instanceof Serializable)) {
+      throw new CacheException("OffHeapCache failed to store a non-serializable object: " + value);
+    }
+    byte[] keyBytes = file == null ? new byte[0] : keySerializer.serialize(key);
+    byte[] valueBytes = codec.serialize(value);
+    int length = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+    readWriteLock.writeLock().lock();
+    try {
+      ensureAllocated();
+      delete(index.remove(key));
+      if (length > slabSize) {
+        // larger than a slab, simply not cached
+        return;
+      }
+      long offset = slabOffset(head);
+      if (offset + length > slabSize) {
+        if (slabSize - offset >= 4) {
+          slabs[slabIndex(head)].putInt((int) offset, PADDING);
+        }
+        head += slabSize - offset;
+      }
+      long start = head;
+      long end = start + length;
+      while (!writeOrder.isEmpty() && end - writeOrder.peekFirst().address > usableCapacity()) {
+        Entry eldest = writeOrder.pollFirst();
+        if (eldest.key != null && index.get(eldest.key) == eldest) {
+          index.remove(eldest.key);
+        }
+      }
+      tail = writeOrder.isEmpty() ? start : writeOrder.peekFirst().address;
+      writeHeader();
+      ByteBuffer slab = slabs[slabIndex(start)].duplicate();
+      slab.position((int) slabOffset(start));
+      slab.putInt(LIVE_RECORD).putInt(keyBytes.length).putInt(valueBytes.length).put(keyBytes).put(valueBytes);
+      Entry entry = new Entry(key, start, valueBytes.length, keyBytes.length);
+      index.put(key, entry);
+      writeOrder.addLast(entry);
+      head = end;
+      writeHeader();
+    } finally {
+      readWriteLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] valueBytes;
+    readWriteLock.readLock().lock();
+    try {
+      Entry entry = slabs == null ? null : index.get(key);
+      if (entry == null) {
+        return null;
+      }
+      valueBytes = new byte[entry.valueLength];
+      ByteBuffer slab = slabs[slabIndex(entry.address)].duplicate();
+      slab.position((int) slabOffset(entry.address) + RECORD_HEADER_SIZE + entry.keyLength);
+      slab.get(valueBytes);
+    } finally {
+      readWriteLock.readLock().unlock();
+    }
+    return codec.deserialize(valueBytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    readWriteLock.writeLock().lock();
+    try {
+      delete(index.remove(key));
+      return null;
+    } finally {
+      readWriteLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    readWriteLock.writeLock().lock();
+    try {
+      index.clear();
+      writeOrder.clear();
+      head = 0;
+      tail = 0;
+      if (slabs != null) {
+        writeHeader();
+      }
+    } finally {
+      readWriteLock.writeLock().unlock();
+    }
+  }
+
+  private void ensureAllocated() {
+    if (slabs == null) {
+      try {
+        allocate();
+      } catch (IOException e) {
+        throw new CacheException("Error allocating OffHeapCache '" + id + "'.  Cause: " + e, e);
+      }
+    }
+  }
+
+  private void allocate() throws IOException {
+    int size = (int) Math.min(slabSize, capacity);
+    int slabCount = (int) Math.max(1, capacity / size);
+    slabSize = size;
+    slabs = new ByteBuffer[slabCount];
+    if (file == null) {
+      header = ByteBuffer.allocateDirect(HEADER_SIZE);
+      for (int i = 0; i < slabCount; i++) {
+        slabs[i] = ByteBuffer.allocateDirect(slabSize);
+      }
+      writeHeader();
+      return;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      // a mapping stays valid after its channel is closed
+      FileChannel channel = raf.getChannel();
+      header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      for (int i = 0; i < slabCount; i++) {
+        slabs[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) i * slabSize, slabSize);
+      }
+    }
+    if (!readHeader() || !loadIndex()) {
+      index.clear();
+      writeOrder.clear();
+      head = 0;
+      tail = 0;
+      writeHeader();
+    }
+  }
+
+  private boolean readHeader() {
+    if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FILE_VERSION
+        || header.getInt(8) != slabSize || header.getInt(12) != slabs.length) {
+      return false;
+    }
+    head = header.getLong(16);
+    tail = header.getLong(24);
+    return tail >= 0 && tail <= head && head - tail <= usableCapacity();
+  }
+
+  private void writeHeader() {
+    header.putInt(0, FILE_MAGIC);
+    header.putInt(4, FILE_VERSION);
+    header.putInt(8, slabSize);
+    header.putInt(12, slabs.length);
+    header.putLong(16, head);
+    header.putLong(24, tail);
+  }
+
+  private boolean loadIndex() {
+    long address = tail;
+    while (address < head) {
+      long offset = slabOffset(address);
+      ByteBuffer slab = slabs[slabIndex(address)];
+      int marker = slabSize - offset < RECORD_HEADER_SIZE ? PADDING : slab.getInt((int) offset);
+      if (marker == PADDING) {
+        address += slabSize - offset;
+        continue;
+      }
+      if (marker != LIVE_RECORD && marker != DELETED_RECORD) {
+        return false;
+      }
+      int keyLength = slab.getInt((int) offset + 4);
+      int valueLength = slab.getInt((int) offset + 8);
+      if (keyLength < 0 || valueLength < 0 || offset + RECORD_HEADER_SIZE + keyLength + valueLength > slabSize) {
+        return false;
+      }
+      if (marker == LIVE_RECORD) {
+        byte[] keyBytes = new byte[keyLength];
+        ByteBuffer record = slab.duplicate();
+        record.position((int) offset + RECORD_HEADER_SIZE);
+        record.get(keyBytes);
+        Object key = deserializeQuietly(keyBytes);
+        if (key != null) {
+          Entry entry = new Entry(key, address, valueLength, keyLength);
+          delete(index.put(key, entry));
+          writeOrder.addLast(entry);
+        }
+      }
+      address += RECORD_HEADER_SIZE + keyLength + valueLength;
+    }
+    return true;
+  }
+
+  private void delete(Entry entry) {
+    if (entry != null && file != null) {
+      slabs[slabIndex(entry.address)].putInt((int) slabOffset(entry.address), DELETED_RECORD);
+    }
+  }
+
+  private long usableCapacity() {
+    return (long) slabs.length * slabSize;
+  }
+
+  private int slabIndex(long address) {
+    return (int) ((address % usableCapacity()) / slabSize);
+  }
+
+  private long slabOffset(long address) {
+    return (address % usableCapacity()) % slabSize;
+  }
+
+  private Object deserializeQuietly(byte[] value) {
+    try {
+      return keySerializer.deserialize(value);
+    } catch (CacheException e) {
+      // the class of a persisted key is gone, drop the entry
+      return null;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static final class Entry {
+    private final Object key;
+    private final long address;
+    private final int valueLength;
+    private final int keyLength;
+
+    Entry(Object key, long address, int valueLength, int keyLength) {
+      this.key = key;
+      this.address = address;
+      this.valueLength = valueLength;
+      this.keyLength = keyLength;
+    }
+  }
+
+}
@@ -49,6 +49,11 @@ public class PerpetualCache implements Cache {
     cache.put(key, value);
   }
 
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    cache.putAll(objects);
+  }
+
   @Override
   public Object getObject(Object key) {
     return cache.get(key);
@@ -0,0 +1,431 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.weigher.DefaultWeigher;
+import org.apache.ibatis.cache.weigher.Weigher;
+import org.apache.ibatis.cache.weigher.Weighers;
+
+/**
+ * Thread safe cache with W-TinyLFU (window TinyLFU) eviction.
+ * <p>
+ * New entries enter a small LRU window. Entries leaving the window are only admitted into the main
+ * segmented LRU area if a frequency sketch estimates they are used more often than the entry they
+ * would replace, so a burst of one-off queries cannot flush the entries that are really hot.
+ * <p>
+ * Reads never lock: a hit is recorded in a lossy ring buffer that is replayed against the eviction
+ * policy by whichever thread next acquires the eviction lock. Writes are serialized by that lock.
+ * Because of this, the cache does not need to be wrapped with a {@code SynchronizedCache}.
+ * <p>
+ * Selected with {@code eviction="TINYLFU"} (or {@code @CacheNamespace(eviction = TinyLfuCache.class)}),
+ * in which case it replaces the default {@link PerpetualCache}.
+ */
+public class TinyLfuCache implements Cache {
+
+  private static final int READ_BUFFER_SIZE = 128;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int READ_BUFFER_DRAIN_THRESHOLD = 32;
+
+  private static final int DEAD = 0;
+  private static final int WINDOW = 1;
+  private static final int PROBATION = 2;
+  private static final int PROTECTED = 3;
+
+  private final String id;
+  private final ConcurrentHashMap<Object, Node> cache = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicLong readBufferWriteCount = new AtomicLong();
+  private volatile long readBufferReadCount;
+
+  // guarded by evictionLock
+  private final AccessOrderDeque window = new AccessOrderDeque();
+  private final AccessOrderDeque probation = new AccessOrderDeque();
+  private final AccessOrderDeque protectedQueue = new AccessOrderDeque();
+  private final FrequencySketch sketch;
+  private int windowMaximum;
+  private int mainMaximum;
+  private int protectedMaximum;
+  private int windowSize;
+  private int mainSize;
+  private int protectedSize;
+  private long totalWeight;
+
+  private long maxBytes;
+  private Weigher weigher = new DefaultWeigher();
+
+  public TinyLfuCache(String id) {
+    this.id = id;
+    this.sketch = new FrequencySketch(1024);
+    setMaximums(1024);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  public void setSize(int size) {
+    if (size < 1) {
+      throw new CacheException("TinyLfuCache size must be positive but was " + size + ".");
+    }
+    evictionLock.lock();
+    try {
+      setMaximums(size);
+      sketch.ensureCapacity(size);
+      evictEntries();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Also evicts entries while the estimated size of all entries exceeds this budget.
+   *
+   * @param maxBytes The memory budget in bytes, 0 (the default) for none
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void setWeigher(String weigher) {
+    this.weigher = Weighers.forName(weigher);
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long weight = maxBytes > 0 ? weigher.weigh(key, value) : 0;
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      Node node = cache.get(key);
+      if (node == null) {
+        node = new Node(key, value);
+        node.weight = weight;
+        cache.put(key, node);
+        onAdd(node);
+      } else {
+        node.value = value;
+        totalWeight += weight - node.weight;
+        node.weight = weight;
+        onAccess(node);
+        evictEntries();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Node node = cache.get(key);
+    if (node == null) {
+      return null;
+    }
+    afterRead(node);
+    return node.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    evictionLock.lock();
+    try {
+      Node node = cache.remove(key);
+      if (node == null) {
+        return null;
+      }
+      unlink(node);
+      return node.value;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      for (Node node : cache.values()) {
+        node.queue = DEAD;
+      }
+      cache.clear();
+      window.clear();
+      probation.clear();
+      protectedQueue.clear();
+      windowSize = 0;
+      mainSize = 0;
+      protectedSize = 0;
+      totalWeight = 0;
+      drainReadBuffer();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void setMaximums(int maximum) {
+    windowMaximum = Math.max(1, maximum / 100);
+    mainMaximum = maximum - windowMaximum;
+    protectedMaximum = mainMaximum * 4 / 5;
+  }
+
+  private void afterRead(Node node) {
+    long writeCount = readBufferWriteCount.get();
+    long pending = writeCount - readBufferReadCount;
+    if (pending < READ_BUFFER_SIZE && readBufferWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+      readBuffer.lazySet((int) (writeCount & READ_BUFFER_MASK), node);
+      pending++;
+    }
+    // the read is simply dropped when the buffer is full or contended, the policy only needs a sample
+    if (pending >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffer() {
+    long readCount = readBufferReadCount;
+    long writeCount = readBufferWriteCount.get();
+    for (; readCount < writeCount; readCount++) {
+      int index = (int) (readCount & READ_BUFFER_MASK);
+      Node node = readBuffer.get(index);
+      if (node == null) {
+        // a reader claimed the slot but has not published its node yet
+        break;
+      }
+      readBuffer.lazySet(index, null);
+      onAccess(node);
+    }
+    readBufferReadCount = readCount;
+  }
+
+  private void onAdd(Node node) {
+    sketch.increment(node.key);
+    node.queue = WINDOW;
+    window.addLast(node);
+    windowSize++;
+    totalWeight += node.weight;
+    evictEntries();
+  }
+
+  private void onAccess(Node node) {
+    switch (node.queue) {
+      case WINDOW:
+        sketch.increment(node.key);
+        window.moveToBack(node);
+        break;
+      case PROBATION:
+        sketch.increment(node.key);
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedQueue.addLast(node);
+        protectedSize++;
+        demoteFromProtected();
+        break;
+      case PROTECTED:
+        sketch.increment(node.key);
+        protectedQueue.moveToBack(node);
+        break;
+      default:
+        // removed while its read was buffered
+        break;
+    }
+  }
+
+  private void demoteFromProtected() {
+    while (protectedSize > protectedMaximum) {
+      Node demoted = protectedQueue.pollFirst();
+      protectedSize--;
+      demoted.queue = PROBATION;
+      probation.addLast(demoted);
+    }
+  }
+
+  private void evictEntries() {
+    while (windowSize > windowMaximum) {
+      Node candidate = window.pollFirst();
+      windowSize--;
+      if (mainSize < mainMaximum) {
+        admit(candidate);
+        continue;
+      }
+      Node victim = probation.isEmpty() ? protectedQueue.peekFirst() : probation.peekFirst();
+      if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+        evict(victim);
+        admit(candidate);
+      } else {
+        totalWeight -= candidate.weight;
+        candidate.queue = DEAD;
+        cache.remove(candidate.key);
+      }
+    }
+    while (mainSize > mainMaximum) {
+      evict(probation.isEmpty() ? protectedQueue.peekFirst() : probation.peekFirst());
+    }
+    while (maxBytes > 0 && totalWeight > maxBytes) {
+      evict(!probation.isEmpty() ? probation.peekFirst()
+          : !protectedQueue.isEmpty() ? protectedQueue.peekFirst() : window.peekFirst());
+    }
+    demoteFromProtected();
+  }
+
+  private void admit(Node candidate) {
+    candidate.queue = PROBATION;
+    probation.addLast(candidate);
+    mainSize++;
+  }
+
+  private void evict(Node victim) {
+    unlink(victim);
+    cache.remove(victim.key);
+  }
+
+  private void unlink(Node node) {
+    switch (node.queue) {
+      case WINDOW:
+        window.remove(node);
+        windowSize--;
+        break;
+      case PROBATION:
+        probation.remove(node);
+        mainSize--;
+        break;
+      case PROTECTED:
+        protectedQueue.remove(node);
+        mainSize--;
+        protectedSize--;
+        break;
+      default:
+        return;
+    }
+    totalWeight -= node.weight;
+    node.queue = DEAD;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static final class Node {
+    private final Object key;
+    private volatile Object value;
+    // guarded by evictionLock
+    private int queue;
+    private long weight;
+    private Node prev;
+    private Node next;
+
+    Node(Object key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  private static final class AccessOrderDeque {
+    private Node first;
+    private Node last;
+
+    boolean isEmpty() {
+      return first == null;
+    }
+
+    Node peekFirst() {
+      return first;
+    }
+
+    Node pollFirst() {
+      Node node = first;
+      if (node != null) {
+        remove(node);
+      }
+      return node;
+    }
+
+    void addLast(Node node) {
+      node.prev = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+    }
+
+    void moveToBack(Node node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    void remove(Node node) {
+      if (node.prev == null) {
+        first = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+    }
+
+    void clear() {
+      first = null;
+      last = null;
+    }
+  }
+
+}
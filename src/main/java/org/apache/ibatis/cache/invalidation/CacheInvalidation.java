@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A committed invalidation of second level caches: the ids of the caches that were cleared and the tables
+ * that were written.
+ */
+public final class CacheInvalidation implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Set<String> cacheIds;
+  private final Set<String> tables;
+
+  public CacheInvalidation(Collection<String> cacheIds, Collection<String> tables) {
+    this.cacheIds = Collections.unmodifiableSet(new LinkedHashSet<>(cacheIds));
+    this.tables = Collections.unmodifiableSet(new LinkedHashSet<>(tables));
+  }
+
+  public static CacheInvalidation clear(String cacheId) {
+    return new CacheInvalidation(Collections.singleton(cacheId), Collections.emptySet());
+  }
+
+  public static CacheInvalidation tables(Collection<String> tables) {
+    return new CacheInvalidation(Collections.emptySet(), tables);
+  }
+
+  /**
+   * @return The ids of the caches to clear
+   */
+  public Set<String> getCacheIds() {
+    return cacheIds;
+  }
+
+  /**
+   * @return The tables whose dependent entries must be removed
+   */
+  public Set<String> getTables() {
+    return tables;
+  }
+
+  public boolean isEmpty() {
+    return cacheIds.isEmpty() && tables.isEmpty();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CacheInvalidation)) {
+      return false;
+    }
+    CacheInvalidation that = (CacheInvalidation) o;
+    return cacheIds.equals(that.cacheIds) && tables.equals(that.tables);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * cacheIds.hashCode() + tables.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "CacheInvalidation[cacheIds=" + cacheIds + ", tables=" + tables + "]";
+  }
+
+}
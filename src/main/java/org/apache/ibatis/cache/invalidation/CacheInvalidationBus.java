@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Carries the invalidations of second level caches committed on one node to the other nodes, so that
+ * they clear the same caches or remove the entries depending on the same tables.
+ * <p>
+ * Invalidations are published after commit by the {@code TransactionalCache} of a cleared cache and, with the
+ * {@code cacheInvalidationScope} setting set to {@code TABLE}, by the {@code TransactionalCacheManager} for the
+ * written tables. A bus delivers them to the listeners of the other nodes, but not back to the publishing one.
+ * <p>
+ * Configured with the {@code cacheInvalidationBus} element of the configuration:
+ * <pre>
+ * &lt;cacheInvalidationBus type="org.apache.ibatis.cache.invalidation.FileCacheInvalidationBus"&gt;
+ *   &lt;property name="file" value="/shared/mybatis-invalidations.log"/&gt;
+ * &lt;/cacheInvalidationBus&gt;
+ * </pre>
+ *
+ * @see LocalCacheInvalidationBus
+ * @see FileCacheInvalidationBus
+ */
+public interface CacheInvalidationBus {
+
+  default void setProperties(Properties properties) {
+    // NOP
+  }
+
+  /**
+   * Sends an invalidation to the other nodes. Must not throw because of a failure to deliver it.
+   *
+   * @param invalidation The invalidation committed on this node
+   */
+  void publish(CacheInvalidation invalidation);
+
+  /**
+   * @param listener Called with each invalidation published by another node, possibly from another thread
+   */
+  void subscribe(Consumer<CacheInvalidation> listener);
+
+  /**
+   * Stops delivering invalidations and releases the resources of the bus.
+   */
+  default void close() {
+    // NOP
+  }
+
+}
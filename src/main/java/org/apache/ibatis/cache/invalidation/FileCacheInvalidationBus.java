@@ -0,0 +1,217 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Exchanges invalidations through a file shared by the nodes, e.g. on a shared volume or, to test a cluster,
+ * on the local disk.
+ * <p>
+ * Each invalidation is appended to the {@code file} as a line, under an exclusive file lock. Every node polls
+ * the file each {@code pollInterval} milliseconds (1000 by default) and applies the lines appended by the other
+ * nodes since it started. An invalidation therefore reaches the other nodes with a delay of up to the poll
+ * interval. The file is not truncated by the bus, it can be removed while no node is running.
+ */
+public class FileCacheInvalidationBus implements CacheInvalidationBus {
+
+  private static final Log log = LogFactory.getLog(FileCacheInvalidationBus.class);
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+  private Path file;
+  private long pollInterval = 1000;
+  private ScheduledExecutorService poller;
+  // guarded by poll
+  private long offset;
+
+  public FileCacheInvalidationBus() {
+    // configured with properties
+  }
+
+  public FileCacheInvalidationBus(Path file, long pollInterval) {
+    this.file = file;
+    this.pollInterval = pollInterval;
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    String fileName = properties.getProperty("file");
+    if (fileName != null) {
+      file = Paths.get(fileName);
+    }
+    String interval = properties.getProperty("pollInterval");
+    if (interval != null) {
+      pollInterval = Long.parseLong(interval);
+    }
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    String line = nodeId + '\t' + encode(invalidation.getCacheIds()) + '\t' + encode(invalidation.getTables()) + '\n';
+    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND); FileLock lock = channel.lock()) {
+      ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      log.warn("Could not publish " + invalidation + " to " + file + ".  Cause: " + e);
+    }
+  }
+
+  @Override
+  public synchronized void subscribe(Consumer<CacheInvalidation> listener) {
+    listeners.add(listener);
+    if (poller == null) {
+      offset = size();
+      poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-cache-invalidation-" + getFile().getFileName());
+        thread.setDaemon(true);
+        return thread;
+      });
+      poller.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (poller != null) {
+      poller.shutdownNow();
+      poller = null;
+    }
+    listeners.clear();
+  }
+
+  /**
+   * Applies the invalidations appended by other nodes since the last poll. Called by the polling thread.
+   */
+  public synchronized void poll() {
+    long size = size();
+    if (size < offset) {
+      // the file was removed or replaced
+      offset = 0;
+    }
+    if (size == offset) {
+      return;
+    }
+    byte[] appended;
+    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - offset, Integer.MAX_VALUE - 8));
+      while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+        // read what was appended
+      }
+      appended = new byte[buffer.position()];
+      buffer.flip();
+      buffer.get(appended);
+    } catch (IOException e) {
+      log.warn("Could not read cache invalidations from " + file + ".  Cause: " + e);
+      return;
+    }
+    int start = 0;
+    for (int i = 0; i < appended.length; i++) {
+      if (appended[i] == '\n') {
+        apply(new String(appended, start, i - start, StandardCharsets.UTF_8));
+        start = i + 1;
+      }
+    }
+    // a line being written is read again by the next poll
+    offset += start;
+  }
+
+  private void apply(String line) {
+    String[] fields = line.split("\t", -1);
+    if (fields.length != 3 || nodeId.equals(fields[0])) {
+      return;
+    }
+    CacheInvalidation invalidation = new CacheInvalidation(decode(fields[1]), decode(fields[2]));
+    for (Consumer<CacheInvalidation> listener : listeners) {
+      try {
+        listener.accept(invalidation);
+      } catch (RuntimeException e) {
+        log.warn("Failed to apply " + invalidation + ".  Cause: " + e);
+      }
+    }
+  }
+
+  private long size() {
+    try {
+      return Files.exists(getFile()) ? Files.size(getFile()) : 0;
+    } catch (IOException e) {
+      return offset;
+    }
+  }
+
+  private Path getFile() {
+    if (file == null) {
+      throw new CacheException("The file property of FileCacheInvalidationBus is required.");
+    }
+    return file;
+  }
+
+  private static String encode(Collection<String> names) {
+    StringJoiner joiner = new StringJoiner(",");
+    try {
+      for (String name : names) {
+        joiner.add(URLEncoder.encode(name, "UTF-8"));
+      }
+    } catch (UnsupportedEncodingException e) {
+      throw new CacheException(e);
+    }
+    return joiner.toString();
+  }
+
+  private static List<String> decode(String field) {
+    List<String> names = new ArrayList<>();
+    try {
+      for (String name : field.split(",")) {
+        if (!name.isEmpty()) {
+          names.add(URLDecoder.decode(name, "UTF-8"));
+        }
+      }
+    } catch (UnsupportedEncodingException e) {
+      throw new CacheException(e);
+    }
+    return names;
+  }
+
+}
@@ -0,0 +1,113 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Delivers invalidations synchronously to the buses of the same {@code channel} (by default "default") in this
+ * JVM, e.g. to keep several configurations of the same mappers consistent, or to test a cluster in one JVM.
+ */
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+  private static final Log log = LogFactory.getLog(LocalCacheInvalidationBus.class);
+
+  private static final ConcurrentMap<String, List<LocalCacheInvalidationBus>> channels = new ConcurrentHashMap<>();
+
+  private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+  private String channel = "default";
+
+  public LocalCacheInvalidationBus() {
+    // the default channel
+  }
+
+  public LocalCacheInvalidationBus(String channel) {
+    this.channel = channel;
+  }
+
+  @Override
+  public synchronized void setProperties(Properties properties) {
+    String name = properties.getProperty("channel");
+    if (name != null && !name.equals(channel)) {
+      boolean joined = leave();
+      channel = name;
+      if (joined) {
+        join();
+      }
+    }
+  }
+
+  public String getChannel() {
+    return channel;
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    for (LocalCacheInvalidationBus bus : channels.getOrDefault(channel, Collections.emptyList())) {
+      if (bus != this) {
+        bus.deliver(invalidation);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void subscribe(Consumer<CacheInvalidation> listener) {
+    if (listeners.isEmpty()) {
+      // only buses with listeners join the channel, so that buses that are not closed do not leak
+      join();
+    }
+    listeners.add(listener);
+  }
+
+  @Override
+  public synchronized void close() {
+    leave();
+    listeners.clear();
+  }
+
+  private void deliver(CacheInvalidation invalidation) {
+    for (Consumer<CacheInvalidation> listener : listeners) {
+      try {
+        listener.accept(invalidation);
+      } catch (RuntimeException e) {
+        log.warn("Failed to apply " + invalidation + ".  Cause: " + e);
+      }
+    }
+  }
+
+  private void join() {
+    channels.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(this);
+  }
+
+  private boolean leave() {
+    boolean[] joined = new boolean[1];
+    channels.computeIfPresent(channel, (k, buses) -> {
+      joined[0] = buses.remove(this);
+      return buses.isEmpty() ? null : buses;
+    });
+    return joined[0];
+  }
+
+}
@@ -0,0 +1,400 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * Compact binary serializer for the values a select usually returns: lists and maps of strings,
+ * numbers, dates and byte arrays.
+ * <p>
+ * Values are written with a one byte tag and variable length integers into a per thread buffer.
+ * Any object graph holding another type (e.g. a result bean) is written with the
+ * {@link JavaSerializer} instead.
+ */
+public class CompactSerializer implements Serializer {
+
+  private static final byte FORMAT_JAVA = 0;
+  private static final byte FORMAT_COMPACT = 1;
+
+  private static final int MAX_DEPTH = 32;
+  private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+  private static final byte NULL = 0;
+  private static final byte TRUE = 1;
+  private static final byte FALSE = 2;
+  private static final byte BYTE = 3;
+  private static final byte SHORT = 4;
+  private static final byte INTEGER = 5;
+  private static final byte LONG = 6;
+  private static final byte FLOAT = 7;
+  private static final byte DOUBLE = 8;
+  private static final byte CHARACTER = 9;
+  private static final byte STRING = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte BIG_INTEGER = 12;
+  private static final byte DATE = 13;
+  private static final byte SQL_DATE = 14;
+  private static final byte SQL_TIME = 15;
+  private static final byte SQL_TIMESTAMP = 16;
+  private static final byte LOCAL_DATE = 17;
+  private static final byte LOCAL_DATE_TIME = 18;
+  private static final byte LOCAL_TIME = 19;
+  private static final byte BYTES = 20;
+  private static final byte ARRAY_LIST = 21;
+  private static final byte HASH_MAP = 22;
+  private static final byte LINKED_HASH_MAP = 23;
+
+  private static final ThreadLocal<Output> OUTPUT = ThreadLocal.withInitial(Output::new);
+
+  private final Serializer fallback = new JavaSerializer();
+
+  @Override
+  public byte[] serialize(Object value) {
+    Output out = OUTPUT.get();
+    out.reset();
+    out.writeByte(FORMAT_COMPACT);
+    boolean written = write(out, value, 0);
+    byte[] bytes = written ? out.toByteArray() : null;
+    if (out.buf.length > MAX_RETAINED_BUFFER) {
+      OUTPUT.remove();
+    }
+    if (bytes != null) {
+      return bytes;
+    }
+    byte[] serialized = fallback.serialize(value);
+    byte[] result = new byte[serialized.length + 1];
+    result[0] = FORMAT_JAVA;
+    System.arraycopy(serialized, 0, result, 1, serialized.length);
+    return result;
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    return deserialize(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes, int offset, int length) {
+    if (bytes[offset] == FORMAT_JAVA) {
+      return fallback.deserialize(bytes, offset + 1, length - 1);
+    }
+    Input in = new Input(bytes);
+    in.pos = offset + 1;
+    return read(in);
+  }
+
+  private boolean write(Output out, Object value, int depth) {
+    if (value == null) {
+      out.writeByte(NULL);
+      return true;
+    }
+    Class<?> type = value.getClass();
+    if (type == String.class) {
+      byte[] chars = ((String) value).getBytes(StandardCharsets.UTF_8);
+      out.writeByte(STRING);
+      out.writeVarInt(chars.length);
+      out.writeBytes(chars);
+    } else if (type == Integer.class) {
+      out.writeByte(INTEGER);
+      out.writeVarLong(zigZag((Integer) value));
+    } else if (type == Long.class) {
+      out.writeByte(LONG);
+      out.writeVarLong(zigZag((Long) value));
+    } else if (type == Boolean.class) {
+      out.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (type == BigDecimal.class) {
+      BigDecimal decimal = (BigDecimal) value;
+      out.writeByte(BIG_DECIMAL);
+      out.writeVarLong(zigZag(decimal.scale()));
+      writeBigInteger(out, decimal.unscaledValue());
+    } else if (type == ArrayList.class) {
+      if (depth == MAX_DEPTH) {
+        return false;
+      }
+      List<?> list = (List<?>) value;
+      out.writeByte(ARRAY_LIST);
+      out.writeVarInt(list.size());
+      for (Object element : list) {
+        if (!write(out, element, depth + 1)) {
+          return false;
+        }
+      }
+    } else if (type == HashMap.class || type == LinkedHashMap.class) {
+      if (depth == MAX_DEPTH) {
+        return false;
+      }
+      Map<?, ?> map = (Map<?, ?>) value;
+      out.writeByte(type == HashMap.class ? HASH_MAP : LINKED_HASH_MAP);
+      out.writeVarInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        if (!write(out, entry.getKey(), depth + 1) || !write(out, entry.getValue(), depth + 1)) {
+          return false;
+        }
+      }
+    } else if (type == java.sql.Timestamp.class) {
+      java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+      out.writeByte(SQL_TIMESTAMP);
+      out.writeVarLong(zigZag(timestamp.getTime()));
+      out.writeVarInt(timestamp.getNanos());
+    } else if (type == Date.class || type == java.sql.Date.class || type == java.sql.Time.class) {
+      out.writeByte(type == Date.class ? DATE : type == java.sql.Date.class ? SQL_DATE : SQL_TIME);
+      out.writeVarLong(zigZag(((Date) value).getTime()));
+    } else if (type == LocalDate.class) {
+      out.writeByte(LOCAL_DATE);
+      out.writeVarLong(zigZag(((LocalDate) value).toEpochDay()));
+    } else if (type == LocalDateTime.class) {
+      LocalDateTime dateTime = (LocalDateTime) value;
+      out.writeByte(LOCAL_DATE_TIME);
+      out.writeVarLong(zigZag(dateTime.toLocalDate().toEpochDay()));
+      out.writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+    } else if (type == LocalTime.class) {
+      out.writeByte(LOCAL_TIME);
+      out.writeVarLong(((LocalTime) value).toNanoOfDay());
+    } else if (type == Double.class) {
+      out.writeByte(DOUBLE);
+      out.writeLong(Double.doubleToRawLongBits((Double) value));
+    } else if (type == Float.class) {
+      out.writeByte(FLOAT);
+      out.writeVarInt(Float.floatToRawIntBits((Float) value));
+    } else if (type == Short.class) {
+      out.writeByte(SHORT);
+      out.writeVarLong(zigZag((Short) value));
+    } else if (type == Byte.class) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte) value);
+    } else if (type == Character.class) {
+      out.writeByte(CHARACTER);
+      out.writeVarInt((Character) value);
+    } else if (type == BigInteger.class) {
+      out.writeByte(BIG_INTEGER);
+      writeBigInteger(out, (BigInteger) value);
+    } else if (type == byte[].class) {
+      byte[] bytes = (byte[]) value;
+      out.writeByte(BYTES);
+      out.writeVarInt(bytes.length);
+      out.writeBytes(bytes);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  private Object read(Input in) {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case BYTE:
+        return in.readByte();
+      case SHORT:
+        return (short) unZigZag(in.readVarLong());
+      case INTEGER:
+        return (int) unZigZag(in.readVarLong());
+      case LONG:
+        return unZigZag(in.readVarLong());
+      case FLOAT:
+        return Float.intBitsToFloat(in.readVarInt());
+      case DOUBLE:
+        return Double.longBitsToDouble(in.readLong());
+      case CHARACTER:
+        return (char) in.readVarInt();
+      case STRING: {
+        int length = in.readVarInt();
+        String string = new String(in.buf, in.pos, length, StandardCharsets.UTF_8);
+        in.pos += length;
+        return string;
+      }
+      case BIG_DECIMAL: {
+        int scale = (int) unZigZag(in.readVarLong());
+        return new BigDecimal(readBigInteger(in), scale);
+      }
+      case BIG_INTEGER:
+        return readBigInteger(in);
+      case DATE:
+        return new Date(unZigZag(in.readVarLong()));
+      case SQL_DATE:
+        return new java.sql.Date(unZigZag(in.readVarLong()));
+      case SQL_TIME:
+        return new java.sql.Time(unZigZag(in.readVarLong()));
+      case SQL_TIMESTAMP: {
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(unZigZag(in.readVarLong()));
+        timestamp.setNanos(in.readVarInt());
+        return timestamp;
+      }
+      case LOCAL_DATE:
+        return LocalDate.ofEpochDay(unZigZag(in.readVarLong()));
+      case LOCAL_DATE_TIME: {
+        LocalDate date = LocalDate.ofEpochDay(unZigZag(in.readVarLong()));
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readVarLong()));
+      }
+      case LOCAL_TIME:
+        return LocalTime.ofNanoOfDay(in.readVarLong());
+      case BYTES: {
+        int length = in.readVarInt();
+        byte[] bytes = Arrays.copyOfRange(in.buf, in.pos, in.pos + length);
+        in.pos += length;
+        return bytes;
+      }
+      case ARRAY_LIST: {
+        int size = in.readVarInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(read(in));
+        }
+        return list;
+      }
+      case HASH_MAP:
+      case LINKED_HASH_MAP: {
+        int size = in.readVarInt();
+        int capacity = (int) (size / 0.75f) + 1;
+        Map<Object, Object> map = tag == HASH_MAP ? new HashMap<>(capacity) : new LinkedHashMap<>(capacity);
+        for (int i = 0; i < size; i++) {
+          map.put(read(in), read(in));
+        }
+        return map;
+      }
+      default:
+        throw new CacheException("Error deserializing object.  Cause: unknown type tag " + tag);
+    }
+  }
+
+  private static void writeBigInteger(Output out, BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    out.writeVarInt(bytes.length);
+    out.writeBytes(bytes);
+  }
+
+  private static BigInteger readBigInteger(Input in) {
+    int length = in.readVarInt();
+    BigInteger value = new BigInteger(Arrays.copyOfRange(in.buf, in.pos, in.pos + length));
+    in.pos += length;
+    return value;
+  }
+
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static final class Output {
+    private byte[] buf = new byte[4096];
+    private int pos;
+
+    void reset() {
+      pos = 0;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buf, pos);
+    }
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      buf[pos++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buf, pos, bytes.length);
+      pos += bytes.length;
+    }
+
+    void writeVarInt(int value) {
+      writeVarLong(value & 0xffffffffL);
+    }
+
+    void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7fL) != 0) {
+        buf[pos++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      buf[pos++] = (byte) value;
+    }
+
+    void writeLong(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buf[pos++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void ensureCapacity(int length) {
+      if (pos + length > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + length));
+      }
+    }
+  }
+
+  private static final class Input {
+    private final byte[] buf;
+    private int pos;
+
+    Input(byte[] buf) {
+      this.buf = buf;
+    }
+
+    byte readByte() {
+      return buf[pos++];
+    }
+
+    int readVarInt() {
+      return (int) readVarLong();
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buf[pos++];
+        value |= (long) (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    }
+
+    long readLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (buf[pos++] & 0xffL);
+      }
+      return value;
+    }
+  }
+
+}
@@ -0,0 +1,256 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.util.Arrays;
+
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * Serializer decorator that compresses the output of another serializer with a fast LZ77 block
+ * codec using the LZ4 block layout.
+ * <p>
+ * Small values and values that do not shrink are stored as is.
+ */
+public class CompressingSerializer implements Serializer {
+
+  private static final byte RAW = 0;
+  private static final byte COMPRESSED = 1;
+  private static final int MIN_COMPRESSED_LENGTH = 256;
+
+  private static final int MIN_MATCH = 4;
+  private static final int LAST_LITERALS = 5;
+  private static final int MATCH_FIND_LIMIT = 12;
+  private static final int MAX_DISTANCE = 65535;
+  private static final int HASH_LOG = 12;
+
+  // a larger scratch buffer is not kept by the thread once used
+  private static final int MAX_KEPT_BUFFER_LENGTH = 1 << 20;
+
+  private static final ThreadLocal<int[]> HASH_TABLE = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+  private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<>();
+
+  private final Serializer delegate;
+
+  public CompressingSerializer(Serializer delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public byte[] serialize(Object value) {
+    byte[] raw = delegate.serialize(value);
+    if (raw.length >= MIN_COMPRESSED_LENGTH) {
+      byte[] compressed = compress(raw);
+      if (compressed != null) {
+        return compressed;
+      }
+    }
+    byte[] result = new byte[raw.length + 1];
+    result[0] = RAW;
+    System.arraycopy(raw, 0, result, 1, raw.length);
+    return result;
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    return deserialize(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes, int offset, int length) {
+    if (bytes[offset] == RAW) {
+      return delegate.deserialize(bytes, offset + 1, length - 1);
+    }
+    int rawLength = readInt(bytes, offset + 1);
+    byte[] raw = takeBuffer(rawLength);
+    try {
+      decompress(bytes, offset + 5, offset + length, raw, rawLength);
+      return delegate.deserialize(raw, 0, rawLength);
+    } finally {
+      releaseBuffer(raw);
+    }
+  }
+
+  /**
+   * @return The scratch buffer of the thread if it is long enough, otherwise a new one. It is taken from the thread
+   *         until released, so that a nested call does not overwrite it.
+   */
+  private static byte[] takeBuffer(int length) {
+    byte[] buffer = BUFFER.get();
+    if (buffer == null || buffer.length < length) {
+      return new byte[length];
+    }
+    BUFFER.set(null);
+    return buffer;
+  }
+
+  private static void releaseBuffer(byte[] buffer) {
+    if (buffer.length <= MAX_KEPT_BUFFER_LENGTH) {
+      byte[] kept = BUFFER.get();
+      if (kept == null || kept.length < buffer.length) {
+        BUFFER.set(buffer);
+      }
+    }
+  }
+
+  /**
+   * @return {@code [COMPRESSED, raw length (4 bytes), blocks...]} or null if it would not be smaller than the input
+   */
+  private static byte[] compress(byte[] src) {
+    byte[] dst = takeBuffer(src.length);
+    try {
+      int dp = compress(src, dst);
+      return dp < 0 ? null : Arrays.copyOf(dst, dp);
+    } finally {
+      releaseBuffer(dst);
+    }
+  }
+
+  /**
+   * @return The length written to the buffer, or -1 if it would not be smaller than the input
+   */
+  private static int compress(byte[] src, byte[] dst) {
+    int srcLength = src.length;
+    dst[0] = COMPRESSED;
+    writeInt(dst, 1, srcLength);
+    int dp = 5;
+    int[] table = HASH_TABLE.get();
+    Arrays.fill(table, -1);
+    int anchor = 0;
+    int ip = 0;
+    int matchLimit = srcLength - MATCH_FIND_LIMIT;
+    while (ip < matchLimit) {
+      int sequence = readInt(src, ip);
+      int h = hash(sequence);
+      int ref = table[h];
+      table[h] = ip;
+      if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+        ip++;
+        continue;
+      }
+      int matchLength = MIN_MATCH;
+      while (ip + matchLength < srcLength - LAST_LITERALS && src[ref + matchLength] == src[ip + matchLength]) {
+        matchLength++;
+      }
+      dp = writeSequence(src, anchor, ip - anchor, dst, dp, ip - ref, matchLength);
+      if (dp < 0) {
+        return -1;
+      }
+      ip += matchLength;
+      anchor = ip;
+    }
+    return writeSequence(src, anchor, srcLength - anchor, dst, dp, 0, 0);
+  }
+
+  private static int writeSequence(byte[] src, int literalStart, int literalLength, byte[] dst, int dp,
+      int offset, int matchLength) {
+    int extraMatch = matchLength == 0 ? 0 : matchLength - MIN_MATCH;
+    // token, literal length bytes, literals, offset and match length bytes; stop as soon as the output is not
+    // smaller than the input, the buffer may be longer
+    if (dp + 1 + literalLength / 255 + 1 + literalLength + 2 + extraMatch / 255 + 1 >= src.length) {
+      return -1;
+    }
+    int tokenPosition = dp++;
+    int token = Math.min(literalLength, 15) << 4;
+    if (literalLength >= 15) {
+      dp = writeLength(dst, dp, literalLength - 15);
+    }
+    System.arraycopy(src, literalStart, dst, dp, literalLength);
+    dp += literalLength;
+    if (matchLength != 0) {
+      dst[dp++] = (byte) offset;
+      dst[dp++] = (byte) (offset >>> 8);
+      token |= Math.min(extraMatch, 15);
+      if (extraMatch >= 15) {
+        dp = writeLength(dst, dp, extraMatch - 15);
+      }
+    }
+    dst[tokenPosition] = (byte) token;
+    return dp;
+  }
+
+  private static int writeLength(byte[] dst, int dp, int length) {
+    while (length >= 255) {
+      dst[dp++] = (byte) 255;
+      length -= 255;
+    }
+    dst[dp++] = (byte) length;
+    return dp;
+  }
+
+  /**
+   * Decompresses the blocks from {@code src[sp]} to {@code src[end]} into the first {@code dstLength} bytes of the
+   * buffer.
+   */
+  private static void decompress(byte[] src, int sp, int end, byte[] dst, int dstLength) {
+    int dp = 0;
+    try {
+      while (sp < end) {
+        int token = src[sp++] & 0xff;
+        int literalLength = token >>> 4;
+        if (literalLength == 15) {
+          int b;
+          do {
+            b = src[sp++] & 0xff;
+            literalLength += b;
+          } while (b == 255);
+        }
+        System.arraycopy(src, sp, dst, dp, literalLength);
+        sp += literalLength;
+        dp += literalLength;
+        if (sp >= end) {
+          break;
+        }
+        int offset = (src[sp++] & 0xff) | ((src[sp++] & 0xff) << 8);
+        int matchLength = token & 0x0f;
+        if (matchLength == 15) {
+          int b;
+          do {
+            b = src[sp++] & 0xff;
+            matchLength += b;
+          } while (b == 255);
+        }
+        matchLength += MIN_MATCH;
+        int ref = dp - offset;
+        for (int i = 0; i < matchLength; i++) {
+          dst[dp++] = dst[ref++];
+        }
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new CacheException("Error decompressing cached object.  Cause: " + e, e);
+    }
+    if (dp != dstLength) {
+      throw new CacheException("Error decompressing cached object.  Cause: " + dp + " bytes decompressed, "
+          + dstLength + " expected");
+    }
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+
+  private static int readInt(byte[] buf, int i) {
+    return (buf[i] & 0xff) | (buf[i + 1] & 0xff) << 8 | (buf[i + 2] & 0xff) << 16 | (buf[i + 3] & 0xff) << 24;
+  }
+
+  private static void writeInt(byte[] buf, int i, int value) {
+    buf[i] = (byte) value;
+    buf[i + 1] = (byte) (value >>> 8);
+    buf[i + 2] = (byte) (value >>> 16);
+    buf[i + 3] = (byte) (value >>> 24);
+  }
+
+}
@@ -0,0 +1,55 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.util.Arrays;
+
+/**
+ * SPI for turning cached objects into bytes and back.
+ * <p>
+ * Implementations are shared by all threads using a cache, so they must be thread safe.
+ * They must provide a public no-args constructor to be configured by class name.
+ *
+ * @see Serializers#forName(String)
+ */
+public interface Serializer {
+
+  /**
+   * @param value The object to copy, may be null
+   * @return The serialized form of the value
+   */
+  byte[] serialize(Object value);
+
+  /**
+   * @param bytes Bytes previously returned by {@link #serialize(Object)}
+   * @return A new copy of the serialized object
+   */
+  Object deserialize(byte[] bytes);
+
+  /**
+   * Same as {@link #deserialize(byte[])} for a range of a buffer, which the serializer must not keep.
+   * The default implementation copies the range.
+   *
+   * @param bytes A buffer holding bytes previously returned by {@link #serialize(Object)}
+   * @param offset The index of their first byte
+   * @param length Their number
+   * @return A new copy of the serialized object
+   */
+  default Object deserialize(byte[] bytes, int offset, int length) {
+    return deserialize(Arrays.copyOfRange(bytes, offset, offset + length));
+  }
+
+}
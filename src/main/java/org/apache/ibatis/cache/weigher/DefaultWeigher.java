@@ -0,0 +1,159 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.weigher;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * Estimates the heap retained by a cached value by walking it.
+ * <p>
+ * Byte arrays (the values stored by a read-write cache) are measured exactly. Lists, maps and
+ * arrays are measured from a sample of their elements, and result beans are walked through the
+ * getters found by {@link Reflector}. Lazy loading proxies are not walked, to avoid triggering
+ * their loads. The result is an approximation of a 64 bit JVM with compressed references.
+ */
+public class DefaultWeigher implements Weigher {
+
+  private static final int OBJECT_HEADER = 16;
+  private static final int REFERENCE = 8;
+  private static final int SAMPLE_SIZE = 16;
+  private static final int MAX_DEPTH = 8;
+  private static final int MAX_VISITED = 4096;
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+
+  @Override
+  public long weigh(Object key, Object value) {
+    Map<Object, Object> visited = new IdentityHashMap<>();
+    return estimate(key, visited, 0) + estimate(value, visited, 0);
+  }
+
+  private long estimate(Object value, Map<Object, Object> visited, int depth) {
+    if (value == null || value instanceof Enum || value instanceof Class) {
+      return 0;
+    }
+    if (value instanceof byte[]) {
+      return align(OBJECT_HEADER + ((byte[]) value).length);
+    }
+    if (value instanceof String) {
+      return align(OBJECT_HEADER + REFERENCE + 8) + align(OBJECT_HEADER + ((String) value).length());
+    }
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte
+        || value instanceof Boolean || value instanceof Character || value instanceof Float) {
+      return OBJECT_HEADER;
+    }
+    if (value instanceof Long || value instanceof Double || value instanceof Date) {
+      return OBJECT_HEADER + 8;
+    }
+    if (value instanceof BigInteger) {
+      return align(OBJECT_HEADER + 24) + align(OBJECT_HEADER + ((BigInteger) value).bitLength() / 8 + 1);
+    }
+    if (value instanceof BigDecimal) {
+      return align(OBJECT_HEADER + 24) + estimate(((BigDecimal) value).unscaledValue(), visited, depth);
+    }
+    if (visited.put(value, value) != null) {
+      return 0;
+    }
+    if (depth == MAX_DEPTH || visited.size() > MAX_VISITED) {
+      return OBJECT_HEADER;
+    }
+    Class<?> type = value.getClass();
+    if (type.isArray()) {
+      return estimateArray(value, visited, depth);
+    }
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      return align(OBJECT_HEADER + 16) + align(OBJECT_HEADER + (long) REFERENCE * collection.size())
+          + estimateElements(collection.iterator(), collection.size(), visited, depth);
+    }
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      Iterator<?> entries = map.entrySet().iterator();
+      long sampled = 0;
+      int count = 0;
+      while (count < SAMPLE_SIZE && entries.hasNext()) {
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) entries.next();
+        sampled += OBJECT_HEADER + 16 + estimate(entry.getKey(), visited, depth + 1)
+            + estimate(entry.getValue(), visited, depth + 1);
+        count++;
+      }
+      return align(OBJECT_HEADER + 32) + align(OBJECT_HEADER + (long) REFERENCE * map.size())
+          + (count == 0 ? 0 : sampled * map.size() / count);
+    }
+    if (value instanceof WriteReplaceInterface || type.getName().startsWith("java.")) {
+      return align(OBJECT_HEADER + 2L * REFERENCE);
+    }
+    return estimateBean(value, visited, depth);
+  }
+
+  private long estimateArray(Object array, Map<Object, Object> visited, int depth) {
+    int length = Array.getLength(array);
+    Class<?> componentType = array.getClass().getComponentType();
+    if (componentType.isPrimitive()) {
+      int elementSize = componentType == long.class || componentType == double.class ? 8
+          : componentType == int.class || componentType == float.class ? 4
+          : componentType == boolean.class || componentType == byte.class ? 1 : 2;
+      return align(OBJECT_HEADER + (long) elementSize * length);
+    }
+    long sampled = 0;
+    int count = Math.min(length, SAMPLE_SIZE);
+    for (int i = 0; i < count; i++) {
+      sampled += estimate(Array.get(array, i), visited, depth + 1);
+    }
+    return align(OBJECT_HEADER + (long) REFERENCE * length) + (count == 0 ? 0 : sampled * length / count);
+  }
+
+  private long estimateElements(Iterator<?> elements, int size, Map<Object, Object> visited, int depth) {
+    long sampled = 0;
+    int count = 0;
+    while (count < SAMPLE_SIZE && elements.hasNext()) {
+      sampled += estimate(elements.next(), visited, depth + 1);
+      count++;
+    }
+    return count == 0 ? 0 : sampled * size / count;
+  }
+
+  private long estimateBean(Object bean, Map<Object, Object> visited, int depth) {
+    Reflector reflector = reflectorFactory.findForClass(bean.getClass());
+    String[] properties = reflector.getGetablePropertyNames();
+    long size = align(OBJECT_HEADER + (long) REFERENCE * properties.length);
+    for (String property : properties) {
+      try {
+        size += estimate(reflector.getGetInvoker(property).invoke(bean, null), visited, depth + 1);
+      } catch (Exception e) {
+        // ignore properties that cannot be read
+      }
+    }
+    return size;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+}
@@ -0,0 +1,35 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.weigher;
+
+/**
+ * SPI for estimating how much memory a cache entry retains.
+ * <p>
+ * Used by the eviction decorators when a {@code maxBytes} budget is configured. Implementations
+ * must be thread safe and provide a public no-args constructor to be configured by class name.
+ *
+ * @see Weighers#forName(String)
+ */
+public interface Weigher {
+
+  /**
+   * @param key The cache key
+   * @param value The cached value, may be null
+   * @return The estimated number of bytes retained by the entry
+   */
+  long weigh(Object key, Object value);
+
+}
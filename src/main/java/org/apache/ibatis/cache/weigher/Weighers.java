@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.weigher;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Resolves the {@code weigher} property of a cache.
+ */
+public final class Weighers {
+
+  private Weighers() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * @param name The fully qualified name of a {@link Weigher} implementation
+   * @return A new weigher instance
+   */
+  public static Weigher forName(String name) {
+    try {
+      return (Weigher) Resources.classForName(name).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Error creating weigher '" + name + "'.  Cause: " + e, e);
+    }
+  }
+
+}
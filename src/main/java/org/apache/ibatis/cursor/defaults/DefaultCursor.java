@@ -158,7 +158,10 @@ public class DefaultCursor<T> implements Cursor<T> {
     return next;
   }
 
-  private boolean isClosed() {
+  /**
+   * @return Whether the cursor was closed or fully consumed, its result set being closed then
+   */
+  public boolean isClosed() {
     return status == CursorStatus.CLOSED || status == CursorStatus.CONSUMED;
   }
 
@@ -21,8 +21,10 @@ import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -30,6 +32,7 @@ import javax.sql.DataSource;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.Deadline;
 
 /**
  * This is a simple, synchronous, thread-safe database connection pool.
@@ -406,8 +409,12 @@ public class PooledDataSource implements DataSource {
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
     int localBadConnectionCount = 0;
+    final Deadline deadline = Deadline.current();
 
     while (conn == null) {
+      if (deadline != null && deadline.isExpired()) {
+        throw new SQLTimeoutException("PooledDataSource: Deadline exceeded before getting a connection.");
+      }
       synchronized (state) {
         if (!state.idleConnections.isEmpty()) {
           // Pool has available connection
@@ -462,11 +469,16 @@ public class PooledDataSource implements DataSource {
                   state.hadToWaitCount++;
                   countedWait = true;
                 }
+                long timeToWait = poolTimeToWait;
+                if (deadline != null) {
+                  // wake up in time to fail at the deadline rather than after it
+                  timeToWait = Math.max(1L, Math.min(timeToWait, deadline.remaining(TimeUnit.MILLISECONDS)));
+                }
                 if (log.isDebugEnabled()) {
-                  log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+                  log.debug("Waiting as long as " + timeToWait + " milliseconds for connection.");
                 }
                 long wt = System.currentTimeMillis();
-                state.wait(poolTimeToWait);
+                state.wait(timeToWait);
                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
               } catch (InterruptedException e) {
                 break;
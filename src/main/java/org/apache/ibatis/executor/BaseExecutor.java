@@ -23,9 +23,11 @@ import java.sql.Statement;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.pagination.Paginator;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -38,6 +40,8 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.KeysetRowBounds;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -55,18 +59,19 @@ public abstract class BaseExecutor implements Executor {
   protected Executor wrapper;
 
   protected ConcurrentLinkedQueue<DeferredLoad> deferredLoads;
-  protected PerpetualCache localCache;
-  protected PerpetualCache localOutputParameterCache;
+  protected Cache localCache;
+  protected Cache localOutputParameterCache;
   protected Configuration configuration;
 
   protected int queryStack;
   private boolean closed;
+  private Deadline deadline;
 
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
     this.deferredLoads = new ConcurrentLinkedQueue<>();
-    this.localCache = new PerpetualCache("LocalCache");
-    this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
+    this.localCache = newLocalCache(configuration, "LocalCache");
+    this.localOutputParameterCache = newLocalCache(configuration, "LocalOutputParameterCache");
     this.closed = false;
     this.configuration = configuration;
     this.wrapper = this;
@@ -146,7 +151,7 @@ public abstract class BaseExecutor implements Executor {
     BoundSql boundSql = ms.getBoundSql(parameter);
     /*创建cachekey，用过缓存的key*/
     /*sql的id，逻辑分页rowBounds的offset、limit，boundSql的sql语句均相同时<主要是动态sql的存在>，也就是组装后的sql语句完全相同时，才认为是同一个cachekey*/
-    CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
+    CacheKey key = ms.isLocalCacheSkipped() ? null : createCacheKey(ms, parameter, rowBounds, boundSql);
     //真正的查询语句执行处
     return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
   }
@@ -185,7 +190,7 @@ public abstract class BaseExecutor implements Executor {
       //queryStack用来记录当前有几条同样的查询语句在同时执行，也就是并发
       queryStack++;
       //未定义resultHandler时，先尝试从缓存中取
-      list = resultHandler == null ? (List<E>) localCache.getObject(key) : null;
+      list = resultHandler == null && isLocallyCached(ms, key) ? (List<E>) localCache.getObject(key) : null;
       if (list != null) {
         //缓存命中是，直接从本地缓存中取出即可
         handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);
@@ -208,6 +213,9 @@ public abstract class BaseExecutor implements Executor {
         // issue #482
         //Statement级别的缓存，只缓存id相同的sql，当所有查询语句和延迟加载的查询语句均执行完毕后，可清空cache，这样可以节约内存
         clearLocalCache();
+      } else if (localCache instanceof BoundedLocalCache) {
+        ((BoundedLocalCache) localCache).evictEntries();
+        ((BoundedLocalCache) localOutputParameterCache).evictEntries();
       }
     }
     return list;
@@ -216,6 +224,10 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    Paginator.PagedSql pagedSql = Paginator.paginate(ms, boundSql, rowBounds);
+    if (pagedSql != null) {
+      return doQueryCursor(ms, parameter, pagedSql.getRowBounds(), pagedSql.getBoundSql());
+    }
     return doQueryCursor(ms, parameter, rowBounds, boundSql);
   }
 
@@ -237,12 +249,19 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
-    CacheKey cacheKey = new CacheKey();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    // id, offset, limit, sql, parameters and environment id
+    CacheKey cacheKey = new CacheKey(5 + parameterMappings.size());
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
+    if (rowBounds instanceof KeysetRowBounds) {
+      KeysetRowBounds keysetRowBounds = (KeysetRowBounds) rowBounds;
+      cacheKey.update(keysetRowBounds.getKeyColumns());
+      cacheKey.update(keysetRowBounds.getLastKey());
+      cacheKey.update(keysetRowBounds.isDescending());
+    }
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
     for (ParameterMapping parameterMapping : parameterMappings) {
@@ -341,6 +360,19 @@ public abstract class BaseExecutor implements Executor {
     StatementUtil.applyTransactionTimeout(statement, statement.getQueryTimeout(), transaction.getTimeout());
   }
 
+  private boolean isLocallyCached(MappedStatement ms, CacheKey key) {
+    return key != null && !ms.isLocalCacheSkipped();
+  }
+
+  private static Cache newLocalCache(Configuration configuration, String id) {
+    Integer size = configuration.getLocalCacheSize();
+    Long maxBytes = configuration.getLocalCacheMaxBytes();
+    if (size == null && maxBytes == null) {
+      return new PerpetualCache(id);
+    }
+    return new BoundedLocalCache(id, size == null ? 0 : size, maxBytes == null ? 0 : maxBytes);
+  }
+
   private void handleLocallyCachedOutputParameters(MappedStatement ms, CacheKey key, Object parameter, BoundSql boundSql) {
     if (ms.getStatementType() == StatementType.CALLABLE) {
       final Object cachedParameter = localOutputParameterCache.getObject(key);
@@ -371,6 +403,15 @@ public abstract class BaseExecutor implements Executor {
    * @throws SQLException
    */
   private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
+    //由数据库完成分页，缓存key仍按原始的sql与rowBounds计算
+    Paginator.PagedSql pagedSql = Paginator.paginate(ms, boundSql, rowBounds);
+    if (pagedSql != null) {
+      boundSql = pagedSql.getBoundSql();
+      rowBounds = pagedSql.getRowBounds();
+    }
+    if (!isLocallyCached(ms, key)) {
+      return doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
     List<E> list;
     //先利用占位符将本次查询设置到本地cache中，个人理解是防止后面延迟加载时cache为空
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
@@ -398,7 +439,11 @@ public abstract class BaseExecutor implements Executor {
    * @throws SQLException
    */
   protected Connection getConnection(Log statementLog) throws SQLException {
-    Connection connection = transaction.getConnection();
+    Connection connection;
+    //将截止时间绑定到当前线程，连接池等待连接时据此限制等待时间
+    try (Deadline.Scope scope = deadline != null ? deadline.bind() : null) {
+      connection = transaction.getConnection();
+    }
     if (statementLog.isDebugEnabled()) {
       return ConnectionLogger.newInstance(connection, statementLog, queryStack);
     } else {
@@ -411,13 +456,23 @@ public abstract class BaseExecutor implements Executor {
     this.wrapper = wrapper;
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    this.deadline = deadline;
+  }
+
+  @Override
+  public Deadline getDeadline() {
+    return Deadline.earliest(deadline, Deadline.current());
+  }
+
   private static class DeferredLoad {
 
     private final MetaObject resultObject;
     private final String property;
     private final Class<?> targetType;
     private final CacheKey key;
-    private final PerpetualCache localCache;
+    private final Cache localCache;
     private final ObjectFactory objectFactory;
     private final ResultExtractor resultExtractor;
 
@@ -425,7 +480,7 @@ public abstract class BaseExecutor implements Executor {
     public DeferredLoad(MetaObject resultObject,
                         String property,
                         CacheKey key,
-                        PerpetualCache localCache,
+                        Cache localCache,
                         Configuration configuration,
                         Class<?> targetType) {
       this.resultObject = resultObject;
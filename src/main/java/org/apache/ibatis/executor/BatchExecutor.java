@@ -21,12 +21,19 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.cache.weigher.DefaultWeigher;
+import org.apache.ibatis.cache.weigher.Weigher;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementDeadline;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -44,8 +51,15 @@ public class BatchExecutor extends BaseExecutor {
 
   private final List<Statement> statementList = new ArrayList<>();
   private final List<BatchResult> batchResultList = new ArrayList<>();
+  private final List<BatchResult> autoFlushedResults = new ArrayList<>();
+  private final Map<String, Integer> openBatches = new HashMap<>();
+  private final Map<Integer, MultiRowInsertBatch> multiRowInserts = new HashMap<>();
+  private final Weigher weigher = new DefaultWeigher();
   private String currentSql;
   private MappedStatement currentStatement;
+  private int pendingUpdates;
+  private long pendingBytes;
+  private long firstPendingUpdateTime;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -58,26 +72,120 @@ public class BatchExecutor extends BaseExecutor {
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
     final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
+    final int openBatch = findOpenBatch(ms, sql);
+    final MultiRowInsertBatch multiRowInsert = openBatch >= 0 ? multiRowInserts.get(openBatch)
+        : configuration.isBatchMultiRowInsert() ? MultiRowInsertBatch.forStatement(ms, sql) : null;
+    if (multiRowInsert != null) {
+      // the rows are set on the multi row statements when the batches are executed
+      stmt = null;
+      multiRowInsert.addRow(boundSql, parameterObject);
+      if (openBatch >= 0) {
+        retainParameterObject(batchResultList.get(openBatch), parameterObject);
+      } else {
+        openBatch(ms, sql, null, parameterObject);
+        multiRowInserts.put(statementList.size() - 1, multiRowInsert);
+      }
+    } else if (openBatch >= 0) {
+      stmt = statementList.get(openBatch);
       applyTransactionTimeout(stmt);
       handler.parameterize(stmt);//fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
-      batchResult.addParameterObject(parameterObject);
+      retainParameterObject(batchResultList.get(openBatch), parameterObject);
     } else {
       Connection connection = getConnection(ms.getStatementLog());
       stmt = handler.prepare(connection, transaction.getTimeout());
       handler.parameterize(stmt);    //fix Issues 322
-      currentSql = sql;
-      currentStatement = ms;
-      statementList.add(stmt);
-      batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      openBatch(ms, sql, stmt, parameterObject);
+    }
+    if (stmt != null) {
+      handler.batch(stmt);
+    }
+    if (isAutoFlushDue(parameterObject)) {
+      executeBatches(autoFlushedResults);
+      if (!configuration.isBatchRetainParameters()) {
+        mergeAutoFlushedResults();
+      }
     }
-    handler.batch(stmt);
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  private void openBatch(MappedStatement ms, String sql, Statement stmt, Object parameterObject) {
+    currentSql = sql;
+    currentStatement = ms;
+    statementList.add(stmt);
+    BatchResult batchResult = new BatchResult(ms, sql);
+    retainParameterObject(batchResult, parameterObject);
+    batchResultList.add(batchResult);
+    if (configuration.isBatchGroupBySql()) {
+      openBatches.put(ms.getId() + '\n' + sql, statementList.size() - 1);
+    }
+  }
+
+  /**
+   * @return The index of the batch the update can be added to: with {@code batchGroupBySql} any batch of the same
+   *         statement and SQL, otherwise only the last one, to keep the order of the updates; -1 if there is none
+   */
+  private int findOpenBatch(MappedStatement ms, String sql) {
+    if (configuration.isBatchGroupBySql()) {
+      final Integer index = openBatches.get(ms.getId() + '\n' + sql);
+      return index == null ? -1 : index;
+    }
+    return sql.equals(currentSql) && ms.equals(currentStatement) ? statementList.size() - 1 : -1;
+  }
+
+  private void retainParameterObject(BatchResult batchResult, Object parameterObject) {
+    // the key generators need the parameter objects even when the batch results should not keep them
+    if (configuration.isBatchRetainParameters() || !(batchResult.getMappedStatement().getKeyGenerator() instanceof NoKeyGenerator)) {
+      batchResult.addParameterObject(parameterObject);
+    }
+  }
+
+  /**
+   * Checks the {@code batchFlushSize}, {@code batchFlushBytes} and {@code batchFlushInterval} settings against the
+   * updates added since the batches were last executed.
+   */
+  private boolean isAutoFlushDue(Object parameterObject) {
+    final long now = System.currentTimeMillis();
+    if (pendingUpdates++ == 0) {
+      firstPendingUpdateTime = now;
+    }
+    final Integer flushSize = configuration.getBatchFlushSize();
+    if (flushSize != null && pendingUpdates >= flushSize) {
+      return true;
+    }
+    final Long flushBytes = configuration.getBatchFlushBytes();
+    if (flushBytes != null) {
+      pendingBytes += currentSql.length() + weigher.weigh(null, parameterObject);
+      if (pendingBytes >= flushBytes) {
+        return true;
+      }
+    }
+    final Long flushInterval = configuration.getBatchFlushInterval();
+    return flushInterval != null && now - firstPendingUpdateTime >= flushInterval;
+  }
+
+  /**
+   * Merges the results of the auto-flushed batches into one result per statement and SQL, whose only update count is
+   * the total of theirs, so that the results kept until the next flush do not grow with the number of rows.
+   */
+  private void mergeAutoFlushedResults() {
+    final Map<String, BatchResult> merged = new LinkedHashMap<>();
+    for (BatchResult result : autoFlushedResults) {
+      final MappedStatement ms = result.getMappedStatement();
+      final BatchResult total = merged.computeIfAbsent(ms.getId() + '\n' + result.getSql(), k -> {
+        BatchResult batchResult = new BatchResult(ms, result.getSql());
+        batchResult.setUpdateCounts(new int[] {0});
+        return batchResult;
+      });
+      int updateCount = total.getUpdateCounts()[0];
+      for (int count : result.getUpdateCounts()) {
+        updateCount = updateCount < 0 || count < 0 ? Statement.SUCCESS_NO_INFO : updateCount + count;
+      }
+      total.getUpdateCounts()[0] = updateCount;
+    }
+    autoFlushedResults.clear();
+    autoFlushedResults.addAll(merged.values());
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -111,54 +219,113 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
       if (isRollback) {
+        discardBatches();
         return Collections.emptyList();
       }
-      for (int i = 0, n = statementList.size(); i < n; i++) {
+      List<BatchResult> results = new ArrayList<>(autoFlushedResults);
+      executeBatches(results);
+      return results;
+    } finally {
+      autoFlushedResults.clear();
+    }
+  }
+
+  /**
+   * Executes the pending batches and adds their results to the given ones, which are also the results reported
+   * as completed when a batch fails.
+   */
+  private void executeBatches(List<BatchResult> results) throws SQLException {
+    try {
+      final List<Integer> executionOrder = getExecutionOrder();
+      for (int k = 0, n = executionOrder.size(); k < n; k++) {
+        int i = executionOrder.get(k);
         Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
         BatchResult batchResult = batchResultList.get(i);
         try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
           MappedStatement ms = batchResult.getMappedStatement();
           List<Object> parameterObjects = batchResult.getParameterObjects();
           KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
+          MultiRowInsertBatch multiRowInsert = multiRowInserts.get(i);
+          if (multiRowInsert != null) {
+            // also assigns the keys generated for each chunk
+            batchResult.setUpdateCounts(multiRowInsert.execute(this, getConnection(ms.getStatementLog()),
+                transaction.getTimeout(), configuration.getBatchMultiRowInsertMaxParameters()));
+          } else {
+            applyTransactionTimeout(stmt);
+            batchResult.setUpdateCounts(StatementDeadline.execute(stmt, getDeadline(), stmt::executeBatch));
+            if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+              Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+              jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+            } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+              for (Object parameter : parameterObjects) {
+                keyGenerator.processAfter(this, ms, stmt, parameter);
+              }
             }
           }
+          if (!configuration.isBatchRetainParameters()) {
+            parameterObjects.clear();
+          }
           // Close statement to close cursor #1109
           closeStatement(stmt);
         } catch (BatchUpdateException e) {
           StringBuilder message = new StringBuilder();
           message.append(batchResult.getMappedStatement().getId())
               .append(" (batch index #")
-              .append(i + 1)
+              .append(k + 1)
               .append(")")
               .append(" failed.");
-          if (i > 0) {
+          if (k > 0) {
             message.append(" ")
-                .append(i)
+                .append(k)
                 .append(" prior sub executor(s) completed successfully, but will be rolled back.");
           }
           throw new BatchExecutorException(message.toString(), e, results, batchResult);
         }
         results.add(batchResult);
       }
-      return results;
     } finally {
-      for (Statement stmt : statementList) {
-        closeStatement(stmt);
+      discardBatches();
+    }
+  }
+
+  /**
+   * @return The indexes of the batches in the order they are executed: the order they were opened in, except that
+   *         with {@code batchGroupBySql} the statements listed by {@code batchStatementOrder} run first, in that order
+   */
+  private List<Integer> getExecutionOrder() {
+    final List<Integer> executionOrder = new ArrayList<>(statementList.size());
+    for (int i = 0; i < statementList.size(); i++) {
+      executionOrder.add(i);
+    }
+    final List<String> statementOrder = configuration.getBatchStatementOrder();
+    if (configuration.isBatchGroupBySql() && !statementOrder.isEmpty()) {
+      executionOrder.sort(Comparator.comparingInt(i -> getDeclaredPosition(statementOrder, batchResultList.get(i).getMappedStatement().getId())));
+    }
+    return executionOrder;
+  }
+
+  private int getDeclaredPosition(List<String> statementOrder, String statementId) {
+    for (int i = 0; i < statementOrder.size(); i++) {
+      String declaredId = statementOrder.get(i);
+      if (statementId.equals(declaredId) || statementId.endsWith("." + declaredId)) {
+        return i;
       }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
     }
+    return statementOrder.size();
+  }
+
+  private void discardBatches() {
+    for (Statement stmt : statementList) {
+      closeStatement(stmt);
+    }
+    currentSql = null;
+    statementList.clear();
+    batchResultList.clear();
+    openBatches.clear();
+    multiRowInserts.clear();
+    pendingUpdates = 0;
+    pendingBytes = 0;
   }
 
 }
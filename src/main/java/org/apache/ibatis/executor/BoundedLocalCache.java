@@ -0,0 +1,137 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.weigher.DefaultWeigher;
+import org.apache.ibatis.cache.weigher.Weigher;
+
+/**
+ * The local cache of an executor when the {@code localCacheSize} or {@code localCacheMaxBytes} setting is set.
+ * <p>
+ * Entries are evicted in least recently used order, but only when {@link #evictEntries()} is called by the
+ * executor once a query and its deferred loads are done, as nested queries rely on the entries they put
+ * (and on the execution placeholders) while the query runs.
+ */
+class BoundedLocalCache implements Cache {
+
+  private final String id;
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final int size;
+  private final long maxBytes;
+  private final Weigher weigher;
+  private long totalWeight;
+
+  /**
+   * @param size The maximum number of entries, 0 for no limit
+   * @param maxBytes The estimated memory budget of all entries in bytes, 0 for none
+   */
+  BoundedLocalCache(String id, int size, long maxBytes) {
+    this.id = id;
+    this.size = size;
+    this.maxBytes = maxBytes;
+    this.weigher = new DefaultWeigher();
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return entries.size();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long weight = maxBytes > 0 ? weigher.weigh(key, value) : 0;
+    Entry previous = entries.put(key, new Entry(value, weight));
+    totalWeight += weight - (previous == null ? 0 : previous.weight);
+  }
+
+  @Override
+  public void putObjects(Map<?, ?> objects) {
+    for (Map.Entry<?, ?> object : objects.entrySet()) {
+      putObject(object.getKey(), object.getValue());
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Entry entry = entries.get(key);
+    return entry == null ? null : entry.value;
+  }
+
+  @Override
+  public Map<Object, Object> getObjects(Collection<?> keys) {
+    Map<Object, Object> objects = new LinkedHashMap<>();
+    for (Object key : keys) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        objects.put(key, entry.value);
+      }
+    }
+    return objects;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Entry entry = entries.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    totalWeight -= entry.weight;
+    return entry.value;
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    totalWeight = 0;
+  }
+
+  /**
+   * Evicts the least recently used entries until the cache is within its bounds.
+   */
+  void evictEntries() {
+    Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext() && isOverBounds()) {
+      totalWeight -= iterator.next().getValue().weight;
+      iterator.remove();
+    }
+  }
+
+  private boolean isOverBounds() {
+    return (size > 0 && entries.size() > size) || (maxBytes > 0 && totalWeight > maxBytes);
+  }
+
+  private static final class Entry {
+    private final Object value;
+    private final long weight;
+
+    Entry(Object value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+}
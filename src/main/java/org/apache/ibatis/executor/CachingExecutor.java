@@ -17,17 +17,27 @@ package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheDependencyRegistry;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.CacheStatistics;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -39,10 +49,28 @@ import org.apache.ibatis.transaction.Transaction;
 public class CachingExecutor implements Executor {
 
   private final Executor delegate;
-  private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final TransactionalCacheManager tcm;
+  private final CacheDependencyRegistry dependencyRegistry;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * @param dependencyRegistry If not null, writes only invalidate the cached entries that depend on the tables they
+   *          write, instead of clearing the cache of their namespace
+   */
+  public CachingExecutor(Executor delegate, CacheDependencyRegistry dependencyRegistry) {
+    this(delegate, dependencyRegistry, null);
+  }
+
+  /**
+   * @param invalidationBus If not null, the flushes and invalidations committed are published to the other nodes
+   */
+  public CachingExecutor(Executor delegate, CacheDependencyRegistry dependencyRegistry, CacheInvalidationBus invalidationBus) {
     this.delegate = delegate;
+    this.dependencyRegistry = dependencyRegistry;
+    this.tcm = new TransactionalCacheManager(dependencyRegistry, invalidationBus);
     delegate.setExecutorWrapper(this);
   }
 
@@ -72,14 +100,19 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-    flushCacheIfRequired(ms);
+    if (dependencyRegistry != null && ms.isFlushCacheRequired() && ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      tcm.invalidate(dependencyRegistry.getTables(ms, parameterObject));
+    } else {
+      flushCacheIfRequired(ms);
+    }
     return delegate.update(ms, parameterObject);
   }
 
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameterObject);
-    CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);
+    boolean cached = ms.getCache() != null && ms.isUseCache() && resultHandler == null;
+    CacheKey key = cached || !ms.isLocalCacheSkipped() ? createCacheKey(ms, parameterObject, rowBounds, boundSql) : null;
     return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
   }
 
@@ -98,13 +131,30 @@ public class CachingExecutor implements Executor {
     if (cache != null) {
       /*刷新缓存*/
       flushCacheIfRequired(ms);
-      if (ms.isUseCache() && resultHandler == null) {
+      if (ms.isUseCache() && resultHandler == null && key != null) {
         ensureNoOutParams(ms, boundSql);
-        @SuppressWarnings("unchecked")
-        List<E> list = (List<E>) tcm.getObject(cache, key);
+        Set<String> tables = dependencyRegistry != null ? dependencyRegistry.getTables(ms, boundSql) : null;
+        List<E> list;
+        ExpiringCache.Refresh refresh;
+        try (ExpiringCache.RefreshClaim claim = ExpiringCache.openRefreshClaim()) {
+          @SuppressWarnings("unchecked")
+          List<E> cachedList = (List<E>) tcm.getObject(cache, key, tables);
+          list = cachedList;
+          refresh = claim.getRefresh();
+        }
         if (list == null) {
+          if (refresh != null) {
+            refresh.release();
+          }
+          CacheStatistics statistics = ms.getConfiguration().getCacheStatistics(cache.getId());
+          long start = statistics != null ? System.nanoTime() : 0;
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          if (statistics != null) {
+            statistics.recordLoad(System.nanoTime() - start);
+          }
+          tcm.putObject(cache, key, list, tables); // issue #578 and #116
+        } else if (refresh != null) {
+          refresh.submit(() -> refreshEntry(ms, parameterObject, rowBounds, key, tables));
         }
         return list;
       }
@@ -164,6 +214,32 @@ public class CachingExecutor implements Executor {
     delegate.clearLocalCache();
   }
 
+  /**
+   * Reloads a cache entry that is about to expire in its own transaction, with the plugins but without
+   * this executor, and puts the result straight in the shared cache.
+   */
+  private void refreshEntry(MappedStatement ms, Object parameterObject, RowBounds rowBounds, CacheKey key, Set<String> tables) {
+    Configuration configuration = ms.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    Transaction transaction = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+    Executor executor = new SimpleExecutor(configuration, transaction);
+    for (Interceptor interceptor : configuration.getInterceptors()) {
+      executor = (Executor) interceptor.plugin(executor);
+    }
+    try {
+      List<Object> list = executor.query(ms, parameterObject, rowBounds, Executor.NO_RESULT_HANDLER);
+      if (tables != null) {
+        dependencyRegistry.putObject(ms.getCache(), key, list, tables);
+      } else {
+        ms.getCache().putObject(key, list);
+      }
+    } catch (SQLException e) {
+      throw new ExecutorException("Error refreshing cache entry for " + ms.getId() + ".  Cause: " + e, e);
+    } finally {
+      executor.close(false);
+    }
+  }
+
   private void flushCacheIfRequired(MappedStatement ms) {
     Cache cache = ms.getCache();
     if (cache != null && ms.isFlushCacheRequired()) {
@@ -176,4 +252,14 @@ public class CachingExecutor implements Executor {
     throw new UnsupportedOperationException("This method should not be called");
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    delegate.setDeadline(deadline);
+  }
+
+  @Override
+  public Deadline getDeadline() {
+    return delegate.getDeadline();
+  }
+
 }
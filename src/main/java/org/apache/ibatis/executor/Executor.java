@@ -23,6 +23,7 @@ import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -64,4 +65,22 @@ public interface Executor {
 
   void setExecutorWrapper(Executor executor);
 
+  /**
+   * @param deadline the deadline of the statements of this executor, null for none
+   * @throws UnsupportedOperationException if the deadline is not null and the executor does not support deadlines
+   */
+  default void setDeadline(Deadline deadline) {
+    if (deadline != null) {
+      throw new UnsupportedOperationException(getClass().getName() + " does not support deadlines");
+    }
+  }
+
+  /**
+   * @return the earliest of the deadline of this executor and the one bound to the current thread, null if none;
+   *         only the latter for an executor that does not support deadlines
+   */
+  default Deadline getDeadline() {
+    return Deadline.current();
+  }
+
 }
@@ -0,0 +1,222 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementDeadline;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * The rows of a single row {@code INSERT ... VALUES (...)} statement that a {@link BatchExecutor} sends as multi row
+ * inserts, {@code INSERT ... VALUES (...), (...)}, when the {@code batchMultiRowInsert} setting is enabled.
+ * <p>
+ * Each chunk holds as many rows as fit in the {@code batchMultiRowInsertMaxParameters} setting. The parameters of
+ * each row are set by its own parameter handler, shifted to the placeholders of the row, and the keys generated for
+ * a chunk are assigned to its rows by {@link Jdbc3KeyGenerator}.
+ */
+class MultiRowInsertBatch {
+
+  private final MappedStatement mappedStatement;
+  private final String prefix;
+  private final String row;
+  private final List<BoundSql> boundSqls = new ArrayList<>();
+  private final List<Object> parameterObjects = new ArrayList<>();
+
+  private MultiRowInsertBatch(MappedStatement mappedStatement, String prefix, String row) {
+    this.mappedStatement = mappedStatement;
+    this.prefix = prefix;
+    this.row = row;
+  }
+
+  /**
+   * @return A batch for the rows of the statement, or null if its SQL is not a single row insert that can be
+   *         rewritten: it must end with its only {@code VALUES} row and have no placeholder before it, and its key
+   *         generator, if any, must be {@link Jdbc3KeyGenerator}
+   */
+  static MultiRowInsertBatch forStatement(MappedStatement ms, String sql) {
+    final KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (ms.getSqlCommandType() != SqlCommandType.INSERT || ms.getStatementType() != StatementType.PREPARED
+        || !(keyGenerator instanceof NoKeyGenerator || keyGenerator instanceof Jdbc3KeyGenerator)) {
+      return null;
+    }
+    final int values = findValues(sql);
+    if (values < 0) {
+      return null;
+    }
+    final int rowStart = sql.indexOf('(', values);
+    final int rowEnd = findClosingParenthesis(sql, rowStart);
+    if (rowEnd < 0 || !sql.substring(rowEnd + 1).trim().isEmpty()) {
+      return null;
+    }
+    return new MultiRowInsertBatch(ms, sql.substring(0, rowStart), sql.substring(rowStart, rowEnd + 1));
+  }
+
+  /**
+   * @return The index of the top level {@code VALUES} keyword followed by a row, -1 if there is none or if a
+   *         placeholder comes before it
+   */
+  private static int findValues(String sql) {
+    final String upperSql = sql.toUpperCase(Locale.ENGLISH);
+    if (!upperSql.trim().startsWith("INSERT")) {
+      return -1;
+    }
+    char quote = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        quote = c == quote ? 0 : quote;
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '?') {
+        return -1;
+      } else if (upperSql.startsWith("VALUES", i) && (i == 0 || !Character.isLetterOrDigit(sql.charAt(i - 1)))
+          && sql.substring(i + 6).trim().startsWith("(")) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int findClosingParenthesis(String sql, int start) {
+    int depth = 0;
+    char quote = 0;
+    for (int i = start; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        quote = c == quote ? 0 : quote;
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  void addRow(BoundSql boundSql, Object parameterObject) {
+    boundSqls.add(boundSql);
+    parameterObjects.add(parameterObject);
+  }
+
+  /**
+   * Inserts the rows, one statement per chunk.
+   *
+   * @return The update count of each row: 1 if the count of its chunk matches its number of rows, otherwise
+   *         {@link Statement#SUCCESS_NO_INFO}
+   */
+  int[] execute(BatchExecutor executor, Connection connection, Integer transactionTimeout, int maxParameters)
+      throws SQLException {
+    final Configuration configuration = mappedStatement.getConfiguration();
+    final int parametersPerRow = boundSqls.get(0).getParameterMappings().size();
+    final int rowsPerChunk = Math.max(1, parametersPerRow == 0 ? maxParameters : maxParameters / parametersPerRow);
+    final int[] updateCounts = new int[boundSqls.size()];
+    PreparedStatement fullChunkStatement = null;
+    try {
+      for (int from = 0; from < boundSqls.size(); from += rowsPerChunk) {
+        final int to = Math.min(from + rowsPerChunk, boundSqls.size());
+        final boolean fullChunk = to - from == rowsPerChunk;
+        PreparedStatement ps = fullChunk ? fullChunkStatement : null;
+        if (ps == null) {
+          ps = prepare(executor, connection, transactionTimeout, to - from);
+          if (fullChunk) {
+            fullChunkStatement = ps;
+          }
+        }
+        try {
+          for (int i = from; i < to; i++) {
+            configuration.newParameterHandler(mappedStatement, parameterObjects.get(i), boundSqls.get(i))
+                .setParameters(shiftParameters(ps, (i - from) * parametersPerRow));
+          }
+          StatementDeadline.execute(ps, executor.getDeadline(), ps::execute);
+          final int updateCount = ps.getUpdateCount();
+          Arrays.fill(updateCounts, from, to, updateCount == to - from ? 1 : Statement.SUCCESS_NO_INFO);
+          if (mappedStatement.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+            ((Jdbc3KeyGenerator) mappedStatement.getKeyGenerator())
+                .processBatch(mappedStatement, ps, new ArrayList<>(parameterObjects.subList(from, to)));
+          }
+        } catch (SQLException e) {
+          int[] completedCounts = Arrays.copyOf(updateCounts, from);
+          throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), completedCounts, e);
+        } finally {
+          if (ps != fullChunkStatement) {
+            executor.closeStatement(ps);
+          }
+        }
+      }
+    } finally {
+      executor.closeStatement(fullChunkStatement);
+    }
+    return updateCounts;
+  }
+
+  private PreparedStatement prepare(BatchExecutor executor, Connection connection, Integer transactionTimeout,
+      int rows) throws SQLException {
+    final StringBuilder sql = new StringBuilder(prefix.length() + rows * (row.length() + 1)).append(prefix);
+    for (int i = 0; i < rows; i++) {
+      sql.append(i == 0 ? "" : ",").append(row);
+    }
+    final BoundSql boundSql = new BoundSql(mappedStatement.getConfiguration(), sql.toString(),
+        Collections.emptyList(), parameterObjects.get(0));
+    final StatementHandler handler = mappedStatement.getConfiguration().newStatementHandler(executor,
+        mappedStatement, parameterObjects.get(0), RowBounds.DEFAULT, null, boundSql);
+    return (PreparedStatement) handler.prepare(connection, transactionTimeout);
+  }
+
+  /**
+   * @return A view of the statement whose parameter indexes start after the given number of parameters
+   */
+  private static PreparedStatement shiftParameters(PreparedStatement ps, int offset) {
+    if (offset == 0) {
+      return ps;
+    }
+    return (PreparedStatement) Proxy.newProxyInstance(MultiRowInsertBatch.class.getClassLoader(),
+        new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+          if (method.getName().startsWith("set") && args != null && args.length > 1
+              && method.getParameterTypes()[0] == int.class) {
+            args[0] = (Integer) args[0] + offset;
+          }
+          try {
+            return method.invoke(ps, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+}
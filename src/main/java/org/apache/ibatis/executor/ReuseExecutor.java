@@ -19,11 +19,15 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
@@ -38,7 +42,13 @@ import org.apache.ibatis.transaction.Transaction;
  */
 public class ReuseExecutor extends BaseExecutor {
 
-  private final Map<String, Statement> statementMap = new HashMap<>();
+  // in access order, to close the least recently used statements beyond reuseStatementCacheSize
+  private final Map<String, Statement> statementMap = new LinkedHashMap<>(16, 0.75f, true);
+  // statements that cannot be closed yet: those of the queries being handled
+  private final Set<Statement> statementsInUse = Collections.newSetFromMap(new IdentityHashMap<>());
+  // the cursors of the statements, which cannot be closed until their cursor is
+  private final Map<Statement, Cursor<?>> cursors = new IdentityHashMap<>();
+  private final StatementCacheStatistics statistics = new StatementCacheStatistics();
 
   public ReuseExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -57,7 +67,15 @@ public class ReuseExecutor extends BaseExecutor {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
     Statement stmt = prepareStatement(handler, ms.getStatementLog());
-    return handler.query(stmt, resultHandler);
+    // nested queries must not close the statement whose results are being handled
+    boolean added = statementsInUse.add(stmt);
+    try {
+      return handler.query(stmt, resultHandler);
+    } finally {
+      if (added) {
+        statementsInUse.remove(stmt);
+      }
+    }
   }
 
   @Override
@@ -65,7 +83,9 @@ public class ReuseExecutor extends BaseExecutor {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
     Statement stmt = prepareStatement(handler, ms.getStatementLog());
-    return handler.queryCursor(stmt);
+    Cursor<E> cursor = handler.queryCursor(stmt);
+    cursors.put(stmt, cursor);
+    return cursor;
   }
 
   @Override
@@ -74,9 +94,18 @@ public class ReuseExecutor extends BaseExecutor {
       closeStatement(stmt);
     }
     statementMap.clear();
+    statementsInUse.clear();
+    cursors.clear();
     return Collections.emptyList();
   }
 
+  /**
+   * @return The hits, misses and evictions of the statements kept open by this executor
+   */
+  public StatementCacheStatistics getStatementCacheStatistics() {
+    return statistics;
+  }
+
   private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
     Statement stmt;
     BoundSql boundSql = handler.getBoundSql();
@@ -84,10 +113,12 @@ public class ReuseExecutor extends BaseExecutor {
     if (hasStatementFor(sql)) {
       stmt = getStatement(sql);
       applyTransactionTimeout(stmt);
+      recordStatementHit();
     } else {
       Connection connection = getConnection(statementLog);
       stmt = handler.prepare(connection, transaction.getTimeout());
       putStatement(sql, stmt);
+      recordStatementMiss();
     }
     handler.parameterize(stmt);
     return stmt;
@@ -106,7 +137,58 @@ public class ReuseExecutor extends BaseExecutor {
   }
 
   private void putStatement(String sql, Statement stmt) {
-    statementMap.put(sql, stmt);
+    Statement previous = statementMap.put(sql, stmt);
+    if (previous != null && previous != stmt) {
+      // its connection was closed
+      statementsInUse.remove(previous);
+      cursors.remove(previous);
+      closeStatement(previous);
+    }
+    evictStatements(stmt);
+  }
+
+  /**
+   * Closes the least recently used statements that are not in use while more than {@code reuseStatementCacheSize}
+   * statements are open, but not the one that was just prepared.
+   */
+  private void evictStatements(Statement prepared) {
+    Integer maxSize = configuration.getReuseStatementCacheSize();
+    if (maxSize == null) {
+      return;
+    }
+    Iterator<Statement> statements = statementMap.values().iterator();
+    while (statementMap.size() > maxSize && statements.hasNext()) {
+      Statement stmt = statements.next();
+      if (stmt != prepared && !statementsInUse.contains(stmt) && !hasOpenCursor(stmt)) {
+        statements.remove();
+        closeStatement(stmt);
+        statistics.recordEviction();
+        configuration.getStatementCacheStatistics().recordEviction();
+      }
+    }
+  }
+
+  private boolean hasOpenCursor(Statement stmt) {
+    Cursor<?> cursor = cursors.get(stmt);
+    if (cursor == null) {
+      return false;
+    }
+    // a cursor returned by a plugin is only known to be done with its statement once consumed
+    boolean closed = cursor instanceof DefaultCursor ? ((DefaultCursor<?>) cursor).isClosed() : cursor.isConsumed();
+    if (closed) {
+      cursors.remove(stmt);
+    }
+    return !closed;
+  }
+
+  private void recordStatementHit() {
+    statistics.recordHit();
+    configuration.getStatementCacheStatistics().recordHit();
+  }
+
+  private void recordStatementMiss() {
+    statistics.recordMiss();
+    configuration.getStatementCacheStatistics().recordMiss();
   }
 
 }
@@ -0,0 +1,77 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the prepared statements kept open by {@link ReuseExecutor}s, per executor and, summed over all the
+ * executors, per configuration.
+ *
+ * @see ReuseExecutor#getStatementCacheStatistics()
+ * @see org.apache.ibatis.session.Configuration#getStatementCacheStatistics()
+ */
+public class StatementCacheStatistics {
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public void recordHit() {
+    hits.increment();
+  }
+
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * @return The number of statements found open for their SQL
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return The number of statements prepared because none was open for their SQL
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public double getHitRatio() {
+    long hitCount = getHits();
+    long requests = hitCount + getMisses();
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+
+  /**
+   * @return The number of statements closed to keep no more than {@code reuseStatementCacheSize} open
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "StatementCacheStatistics[hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+  }
+
+}
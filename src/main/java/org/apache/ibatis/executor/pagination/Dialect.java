@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * Rewrites a select so that the database itself skips and limits the rows, instead of the driver transferring
+ * rows that {@link org.apache.ibatis.session.RowBounds} then discards.
+ */
+public interface Dialect {
+
+  /**
+   * @param sql the select to page
+   * @param offset the number of rows to skip, 0 for none
+   * @param limit the maximum number of rows to return, {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} for
+   *        no limit
+   * @param parameters receives, in order, the values of the placeholders added to the SQL; they must all follow the
+   *        placeholders already in it
+   * @return the paged select
+   */
+  String getPageSql(String sql, int offset, int limit, List<Object> parameters);
+
+}
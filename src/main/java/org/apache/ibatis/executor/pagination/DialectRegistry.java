@@ -0,0 +1,68 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps database ids to the dialect that pages their selects. An id matches a key when it equals it or, failing
+ * that, contains it ignoring case, so that both the product names reported by
+ * {@link org.apache.ibatis.mapping.VendorDatabaseIdProvider} ("HSQL Database Engine") and the usual short aliases
+ * ("hsqldb") find their dialect.
+ */
+public class DialectRegistry {
+
+  private final Map<String, Dialect> dialects = new LinkedHashMap<>();
+
+  public DialectRegistry() {
+    Dialect limitOffset = new LimitOffsetDialect();
+    Dialect fetchFirst = new FetchFirstDialect();
+    register("mysql", limitOffset);
+    register("mariadb", limitOffset);
+    register("postgresql", limitOffset);
+    register("hsql", limitOffset);
+    register("h2", limitOffset);
+    register("sqlite", limitOffset);
+    register("oracle", fetchFirst);
+    register("sql server", fetchFirst);
+    register("sqlserver", fetchFirst);
+    register("db2", fetchFirst);
+    register("derby", fetchFirst);
+  }
+
+  public void register(String databaseId, Dialect dialect) {
+    dialects.put(databaseId.toLowerCase(Locale.ENGLISH), dialect);
+  }
+
+  public Dialect getDialect(String databaseId) {
+    if (databaseId == null) {
+      return null;
+    }
+    String id = databaseId.toLowerCase(Locale.ENGLISH);
+    Dialect dialect = dialects.get(id);
+    if (dialect == null) {
+      for (Map.Entry<String, Dialect> entry : dialects.entrySet()) {
+        if (id.contains(entry.getKey())) {
+          return entry.getValue();
+        }
+      }
+    }
+    return dialect;
+  }
+
+}
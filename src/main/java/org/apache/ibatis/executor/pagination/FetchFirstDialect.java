@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Pages with the SQL:2008 <code>OFFSET ? ROWS FETCH FIRST ? ROWS ONLY</code>, as Oracle 12c, SQL Server 2012, DB2
+ * and Derby do. SQL Server only accepts it after an <code>ORDER BY</code>.
+ */
+public class FetchFirstDialect implements Dialect {
+
+  @Override
+  public String getPageSql(String sql, int offset, int limit, List<Object> parameters) {
+    // SQL Server does not accept a FETCH without an OFFSET
+    StringBuilder pageSql = new StringBuilder(sql.length() + 40).append(sql).append(" OFFSET ? ROWS");
+    parameters.add(offset);
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pageSql.append(" FETCH FIRST ? ROWS ONLY");
+      parameters.add(limit);
+    }
+    return pageSql.toString();
+  }
+
+}
@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * Pages with <code>LIMIT ? OFFSET ?</code>, as MySQL, MariaDB, PostgreSQL, H2, HSQLDB and SQLite do.
+ */
+public class LimitOffsetDialect implements Dialect {
+
+  @Override
+  public String getPageSql(String sql, int offset, int limit, List<Object> parameters) {
+    // MySQL and SQLite do not accept an OFFSET without a LIMIT
+    StringBuilder pageSql = new StringBuilder(sql.length() + 20).append(sql).append(" LIMIT ?");
+    parameters.add(limit);
+    if (offset > 0) {
+      pageSql.append(" OFFSET ?");
+      parameters.add(offset);
+    }
+    return pageSql.toString();
+  }
+
+}
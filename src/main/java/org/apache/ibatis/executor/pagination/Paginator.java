@@ -0,0 +1,251 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Moves the row bounds of a select into its SQL. Offsets and limits go through the {@link Dialect} of the
+ * configuration, if there is one; the key condition and ordering of {@link KeysetRowBounds} are plain SQL and are
+ * always applied. It also derives the statements counting the rows of a select.
+ */
+public final class Paginator {
+
+  public static final String PAGE_PARAMETER_PREFIX = "__page_";
+
+  public static final String COUNT_SUFFIX = "!count";
+
+  private static final Pattern ORDER_BY = Pattern.compile("order\\s+by\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern SELECT = Pattern.compile("select\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern FROM = Pattern.compile("from\\b", Pattern.CASE_INSENSITIVE);
+  // a projection that does not return one row per row read: DISTINCT, TOP or an aggregate
+  private static final Pattern DISTINCT = Pattern.compile("select\\s+(distinct|top)\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern AGGREGATE = Pattern.compile(
+      "(count|sum|avg|min|max|group_concat|string_agg|listagg|array_agg)\\s*\\(", Pattern.CASE_INSENSITIVE);
+  private static final Pattern ROW_REDUCING_CLAUSE = Pattern.compile(
+      "(group\\s+by|having|union|intersect|except|minus|limit|offset|fetch|window)\\b", Pattern.CASE_INSENSITIVE);
+
+  private Paginator() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * @return the paged query, or null when the select is run as it is
+   */
+  public static PagedSql paginate(MappedStatement ms, BoundSql boundSql, RowBounds rowBounds) {
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() == StatementType.CALLABLE) {
+      return null;
+    }
+    boolean keyset = rowBounds instanceof KeysetRowBounds;
+    boolean bounded = rowBounds.getOffset() > RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT;
+    Configuration configuration = ms.getConfiguration();
+    // the limit of a nested result map counts the objects built, while the database would count the joined rows
+    Dialect dialect = bounded && !ms.hasNestedResultMaps() ? getDialect(configuration) : null;
+    if (!keyset && dialect == null) {
+      return null;
+    }
+    String sql = boundSql.getSql();
+    List<Object> values = new ArrayList<>();
+    if (keyset) {
+      sql = getKeysetSql(sql, (KeysetRowBounds) rowBounds, values);
+    }
+    RowBounds remainingRowBounds = rowBounds;
+    if (dialect != null) {
+      sql = dialect.getPageSql(sql, rowBounds.getOffset(), rowBounds.getLimit(), values);
+      remainingRowBounds = RowBounds.DEFAULT;
+    }
+    TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+    BoundSql pagedBoundSql = boundSql.withSql(configuration, sql, parameterMappings);
+    for (int i = 0; i < values.size(); i++) {
+      Object value = values.get(i);
+      String property = PAGE_PARAMETER_PREFIX + i;
+      Class<?> javaType = typeHandlerRegistry.hasTypeHandler(value.getClass()) ? value.getClass() : Object.class;
+      parameterMappings.add(new ParameterMapping.Builder(configuration, property, javaType).build());
+      pagedBoundSql.setAdditionalParameter(property, value);
+    }
+    return new PagedSql(pagedBoundSql, remainingRowBounds);
+  }
+
+  private static Dialect getDialect(Configuration configuration) {
+    if (configuration.getPaginationDialect() != null) {
+      return configuration.getPaginationDialect();
+    }
+    if (configuration.isPhysicalPagination()) {
+      return configuration.getDialectRegistry().getDialect(configuration.getDatabaseId());
+    }
+    return null;
+  }
+
+  private static String getKeysetSql(String sql, KeysetRowBounds rowBounds, List<Object> values) {
+    List<String> columns = rowBounds.getKeyColumns();
+    List<Object> lastKey = rowBounds.getLastKey();
+    String comparison = rowBounds.isDescending() ? " < ?" : " > ?";
+    StringBuilder keysetSql = new StringBuilder(sql.length() + 100)
+        .append("SELECT * FROM (").append(stripOrderBy(sql)).append(") keyset_");
+    if (!lastKey.isEmpty()) {
+      // (a > ?) OR (a = ? AND b > ?) ..., which unlike (a, b) > (?, ?) every database understands
+      keysetSql.append(" WHERE ");
+      for (int i = 0; i < columns.size(); i++) {
+        keysetSql.append(i == 0 ? "(" : " OR (");
+        for (int j = 0; j < i; j++) {
+          keysetSql.append(columns.get(j)).append(" = ? AND ");
+          values.add(lastKey.get(j));
+        }
+        keysetSql.append(columns.get(i)).append(comparison).append(')');
+        values.add(lastKey.get(i));
+      }
+    }
+    keysetSql.append(" ORDER BY ");
+    for (int i = 0; i < columns.size(); i++) {
+      keysetSql.append(i == 0 ? "" : ", ").append(columns.get(i)).append(rowBounds.isDescending() ? " DESC" : "");
+    }
+    return keysetSql.toString();
+  }
+
+  /**
+   * Removes the trailing ORDER BY of a select, which the key ordering replaces and which some databases reject in a
+   * derived table. One holding parameters is left alone, as the parameter mappings would no longer line up.
+   */
+  static String stripOrderBy(String sql) {
+    int orderBy = indexOfTopLevel(sql, ORDER_BY, true);
+    if (orderBy < 0 || sql.indexOf('?', orderBy) >= 0) {
+      return sql;
+    }
+    return sql.substring(0, orderBy).trim();
+  }
+
+  /**
+   * @return the statement counting the rows of a select, built on first use and kept apart from the mapped
+   *         statements, which are only read once the mappers are parsed; a statement of that id declared in a mapper
+   *         takes its place
+   */
+  public static MappedStatement getCountStatement(MappedStatement ms) {
+    Configuration configuration = ms.getConfiguration();
+    String countId = ms.getId() + COUNT_SUFFIX;
+    if (configuration.hasStatement(countId, false)) {
+      return configuration.getMappedStatement(countId, false);
+    }
+    return configuration.getCountStatements().computeIfAbsent(countId, id -> buildCountStatement(ms, id));
+  }
+
+  private static MappedStatement buildCountStatement(MappedStatement ms, String countId) {
+    Configuration configuration = ms.getConfiguration();
+    SqlSource countSqlSource = parameterObject -> {
+      BoundSql boundSql = ms.getBoundSql(parameterObject);
+      return boundSql.withSql(configuration, getCountSql(boundSql.getSql()), boundSql.getParameterMappings());
+    };
+    List<ResultMap> resultMaps = new ArrayList<>();
+    resultMaps.add(new ResultMap.Builder(configuration, countId + "-Inline", Long.class, new ArrayList<>()).build());
+    return new MappedStatement.Builder(configuration, countId, countSqlSource, SqlCommandType.SELECT)
+        .resource(ms.getResource())
+        .parameterMap(ms.getParameterMap())
+        .resultMaps(resultMaps)
+        .timeout(ms.getTimeout())
+        .statementType(ms.getStatementType())
+        .databaseId(ms.getDatabaseId())
+        .lang(ms.getLang())
+        .cache(ms.getCache())
+        .flushCacheRequired(ms.isFlushCacheRequired())
+        .useCache(ms.isUseCache())
+        .tables(ms.getTables() == null ? null : String.join(",", ms.getTables()))
+        .build();
+  }
+
+  /**
+   * Turns a select into one counting its rows. The ORDER BY goes; so does the select list of a plain
+   * <code>SELECT ... FROM</code>, the rest being wrapped as a derived table.
+   */
+  static String getCountSql(String sql) {
+    String countSql = stripOrderBy(sql.trim());
+    int from = indexOfTopLevel(countSql, FROM, false);
+    if (from > 0 && SELECT.matcher(countSql).lookingAt() && countSql.lastIndexOf('?', from) < 0
+        && !DISTINCT.matcher(countSql).lookingAt() && indexOfTopLevel(countSql.substring(0, from), AGGREGATE, false) < 0
+        && indexOfTopLevel(countSql, ROW_REDUCING_CLAUSE, false) < 0) {
+      return "SELECT COUNT(*) " + countSql.substring(from);
+    }
+    return "SELECT COUNT(*) FROM (" + countSql + ") count_";
+  }
+
+  /**
+   * @return the position of the first, or last, match of the pattern outside of quotes and parentheses, -1 if none
+   */
+  private static int indexOfTopLevel(String sql, Pattern pattern, boolean last) {
+    Matcher matcher = pattern.matcher(sql);
+    int index = -1;
+    int depth = 0;
+    char quote = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))
+          && matcher.region(i, sql.length()).lookingAt()) {
+        index = i;
+        if (!last) {
+          break;
+        }
+      }
+    }
+    return index;
+  }
+
+  public static class PagedSql {
+
+    private final BoundSql boundSql;
+    private final RowBounds rowBounds;
+
+    PagedSql(BoundSql boundSql, RowBounds rowBounds) {
+      this.boundSql = boundSql;
+      this.rowBounds = rowBounds;
+    }
+
+    public BoundSql getBoundSql() {
+      return boundSql;
+    }
+
+    /**
+     * @return the bounds still to be applied to the result set, {@link RowBounds#DEFAULT} when the SQL applies them
+     */
+    public RowBounds getRowBounds() {
+      return rowBounds;
+    }
+  }
+
+}
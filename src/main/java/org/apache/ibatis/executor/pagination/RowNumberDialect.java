@@ -0,0 +1,43 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Pages by numbering the rows of the select with <code>ROW_NUMBER()</code>, for databases that have window functions
+ * but neither <code>LIMIT</code> nor <code>FETCH FIRST</code>. The number comes back as an extra
+ * <code>page_row_</code> column.
+ */
+public class RowNumberDialect implements Dialect {
+
+  @Override
+  public String getPageSql(String sql, int offset, int limit, List<Object> parameters) {
+    StringBuilder pageSql = new StringBuilder(sql.length() + 120)
+        .append("SELECT * FROM (SELECT page_.*, ROW_NUMBER() OVER () AS page_row_ FROM (")
+        .append(sql)
+        .append(") page_) page_ WHERE page_row_ > ?");
+    parameters.add(offset);
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pageSql.append(" AND page_row_ <= ?");
+      parameters.add((long) offset + limit);
+    }
+    return pageSql.toString();
+  }
+
+}
@@ -16,17 +16,27 @@
 package org.apache.ibatis.executor.resultset;
 
 import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.annotations.AutomapConstructor;
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
@@ -36,6 +46,7 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.ResultExtractor;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -44,6 +55,7 @@ import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
@@ -55,9 +67,12 @@ import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
@@ -71,6 +86,8 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object DEFERRED = new Object();
+  private static final int MAX_BATCH_KEYS = 1000;
+  private static final int PIPELINED_CHUNK_ROWS = 256;
 
   private final Executor executor;
   private final Configuration configuration;
@@ -92,6 +109,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
+  // batched nested queries
+  private final Map<String, List<PendingBatchLoad>> pendingBatchLoads = new LinkedHashMap<>();
+  private boolean batchingNestedQueries;
+
+  // nested queries run in parallel
+  private final List<PendingParallelLoad> pendingParallelLoads = new ArrayList<>();
+  private boolean parallelNestedQueries;
+
   // Cached Automappings
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
@@ -103,6 +128,39 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
+  private static class PendingBatchLoad {
+    private final MetaObject metaObject;
+    private final ResultMapping propertyMapping;
+    private final Object key;
+
+    PendingBatchLoad(MetaObject metaObject, ResultMapping propertyMapping, Object key) {
+      this.metaObject = metaObject;
+      this.propertyMapping = propertyMapping;
+      this.key = key;
+    }
+  }
+
+  private static class PendingParallelLoad {
+    private final MetaObject metaObject;
+    private final String property;
+    private final MappedStatement nestedQuery;
+    private final Object parameterObject;
+    private final Class<?> targetType;
+    private final CacheKey key;
+    private final BoundSql boundSql;
+
+    PendingParallelLoad(MetaObject metaObject, String property, MappedStatement nestedQuery, Object parameterObject,
+        Class<?> targetType, CacheKey key, BoundSql boundSql) {
+      this.metaObject = metaObject;
+      this.property = property;
+      this.nestedQuery = nestedQuery;
+      this.parameterObject = parameterObject;
+      this.targetType = targetType;
+      this.key = key;
+      this.boundSql = boundSql;
+    }
+  }
+
   private static class UnMappedColumnAutoMapping {
     private final String column;
     private final String property;
@@ -117,6 +175,39 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  private static class PipelinedColumn {
+    private final String column;
+    private final String property;
+    private final TypeHandler<?> typeHandler;
+    private final boolean primitive;
+
+    PipelinedColumn(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
+      this.column = column;
+      this.property = property;
+      this.typeHandler = typeHandler;
+      this.primitive = primitive;
+    }
+  }
+
+  private static class PipelinedChunk {
+    private final Class<?> resultType;
+    private final List<PipelinedColumn> columns;
+    private final List<Object[]> rows;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private Future<?> future;
+    private List<Object> rowValues;
+
+    PipelinedChunk(Class<?> resultType, List<PipelinedColumn> columns, List<Object[]> rows) {
+      this.resultType = resultType;
+      this.columns = columns;
+      this.rows = rows;
+    }
+
+    boolean isDone() {
+      return future.isDone();
+    }
+  }
+
   public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, ParameterHandler parameterHandler, ResultHandler<?> resultHandler, BoundSql boundSql,
                                  RowBounds rowBounds) {
     this.executor = executor;
@@ -191,6 +282,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
 
     final List<Object> multipleResults = new ArrayList<>();
+    // results passed to a result handler cannot wait for their batched nested queries
+    batchingNestedQueries = resultHandler == null;
+    parallelNestedQueries = resultHandler == null && mappedStatement.getNestedSelectParallelism() > 1;
 
     int resultSetCount = 0;
     /*1.从jdbc操作数据库后的statement中取出结果集ResultSet*/
@@ -237,6 +331,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         resultSetCount++;
       }
     }
+    loadBatchedNestedQueries();
+    loadParallelNestedQueries();
     /*5 构造List，将处理后的结果集返回*/
     return collapseSingleResultList(multipleResults);
   }
@@ -328,11 +424,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (resultHandler == null) {
           /*用户没有自定义resultHandler时，采用DefaultResultHandler。并将最终处理结果添加到multipleResult中*/
           DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
-          handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+          handleTopLevelRowValues(rsw, resultMap, defaultResultHandler);
           multipleResults.add(defaultResultHandler.getResultList());
         } else {
           /*用户定义了resultHandler时，采用用户自定义的resultHandler*/
-          handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
+          handleTopLevelRowValues(rsw, resultMap, resultHandler);
         }
       }
     } finally {
@@ -346,6 +442,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return multipleResults.size() == 1 ? (List<Object>) multipleResults.get(0) : multipleResults;
   }
 
+  /*开启resultMappingThreads且resultMap足够简单时，调用线程读取结果集，结果对象由异步线程池中的线程构建*/
+  private void handleTopLevelRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler) throws SQLException {
+    if (configuration.getResultMappingThreads() > 0 && canPipelineRowValues(rsw, resultMap)) {
+      handleRowValuesPipelined(rsw, resultMap, resultHandler, rowBounds);
+    } else {
+      handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
+    }
+  }
+
   //
   // HANDLE ROWS FOR SIMPLE RESULTMAP
   //
@@ -448,6 +553,158 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  //
+  // PIPELINED ROWS FOR SIMPLE RESULTMAP
+  //
+
+  /**
+   * Whether every row of the result map can be mapped from its column values alone: the object is created by the
+   * object factory and only gets simple property values, so that it can be built on another thread.
+   */
+  private boolean canPipelineRowValues(ResultSetWrapper rsw, ResultMap resultMap) {
+    final Class<?> resultType = resultMap.getType();
+    if (resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries() || resultMap.getDiscriminator() != null
+        || !resultMap.getConstructorResultMappings().isEmpty() || hasTypeHandlerForResultObject(rsw, resultType)) {
+      return false;
+    }
+    if (!resultType.isInterface() && !MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor()) {
+      return false;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the rows on the calling thread, keeping the values of the mapped columns, and builds their objects in chunks
+   * on {@code resultMappingThreads} threads of the async executor service. The objects are handed to the result handler
+   * on the calling thread in the order of the rows. A chunk no thread has started yet is built by the calling thread,
+   * so the rows are mapped even when no pool thread is free.
+   */
+  private void handleRowValuesPipelined(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds)
+      throws SQLException {
+    final DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
+    final ResultSet resultSet = rsw.getResultSet();
+    final List<PipelinedColumn> columns = createPipelinedColumns(rsw, resultMap);
+    final int maxChunksInFlight = configuration.getResultMappingThreads() * 2;
+    final Deque<PipelinedChunk> chunks = new ArrayDeque<>();
+    skipRows(resultSet, rowBounds);
+    try {
+      int rowCount = 0;
+      List<Object[]> rows = new ArrayList<>(PIPELINED_CHUNK_ROWS);
+      while (!resultContext.isStopped() && rowCount < rowBounds.getLimit() && !resultSet.isClosed() && resultSet.next()) {
+        final Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = columns.get(i).typeHandler.getResult(resultSet, columns.get(i).column);
+        }
+        rows.add(values);
+        rowCount++;
+        if (rows.size() == PIPELINED_CHUNK_ROWS) {
+          chunks.add(submitPipelinedChunk(resultMap.getType(), columns, rows));
+          rows = new ArrayList<>(PIPELINED_CHUNK_ROWS);
+          // 结果按行的顺序交给resultHandler，已构建完的块先处理，进行中的块达到上限时等待最早的块
+          while (!chunks.isEmpty() && (chunks.peek().isDone() || chunks.size() >= maxChunksInFlight)) {
+            storePipelinedChunk(chunks.poll(), resultHandler, resultContext);
+          }
+        }
+      }
+      if (!rows.isEmpty()) {
+        chunks.add(submitPipelinedChunk(resultMap.getType(), columns, rows));
+      }
+      while (!chunks.isEmpty()) {
+        storePipelinedChunk(chunks.poll(), resultHandler, resultContext);
+      }
+    } finally {
+      // the chunks left after a failure or a stopped result context are not built
+      for (PipelinedChunk chunk : chunks) {
+        chunk.started.set(true);
+      }
+    }
+  }
+
+  private List<PipelinedColumn> createPipelinedColumns(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    final MetaObject metaObject = configuration.newMetaObject(objectFactory.create(resultMap.getType()));
+    final List<PipelinedColumn> columns = new ArrayList<>();
+    // 与getRowValue一致，先自动映射，再映射resultMap中的属性
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaObject, null)) {
+        columns.add(new PipelinedColumn(mapping.column, mapping.property, mapping.typeHandler, mapping.primitive));
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      final String column = propertyMapping.getColumn();
+      final String property = propertyMapping.getProperty();
+      // issue #541 make property optional
+      if (property != null && column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        columns.add(new PipelinedColumn(column, property, propertyMapping.getTypeHandler(),
+            metaObject.getSetterType(property).isPrimitive()));
+      }
+    }
+    return columns;
+  }
+
+  private PipelinedChunk submitPipelinedChunk(Class<?> resultType, List<PipelinedColumn> columns, List<Object[]> rows) {
+    final PipelinedChunk chunk = new PipelinedChunk(resultType, columns, rows);
+    chunk.future = configuration.getAsyncExecutorService().submit(() -> {
+      if (chunk.started.compareAndSet(false, true)) {
+        chunk.rowValues = buildPipelinedRowValues(chunk);
+      }
+      return null;
+    });
+    return chunk;
+  }
+
+  private void storePipelinedChunk(PipelinedChunk chunk, ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext) {
+    if (chunk.started.compareAndSet(false, true)) {
+      chunk.future.cancel(false);
+      chunk.rowValues = buildPipelinedRowValues(chunk);
+    } else {
+      try {
+        chunk.future.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new ExecutorException("Error mapping results in parallel.  Cause: " + e.getCause(), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExecutorException("Interrupted while mapping results in parallel.", e);
+      }
+    }
+    for (Object rowValue : chunk.rowValues) {
+      if (resultContext.isStopped()) {
+        break;
+      }
+      callResultHandler(resultHandler, resultContext, rowValue);
+    }
+  }
+
+  /*与getRowValue的简单resultMap处理一致：创建对象，设置属性值，没有找到任何值时返回null*/
+  private List<Object> buildPipelinedRowValues(PipelinedChunk chunk) {
+    final List<Object> rowValues = new ArrayList<>(chunk.rows.size());
+    for (Object[] values : chunk.rows) {
+      final Object rowValue = objectFactory.create(chunk.resultType);
+      final MetaObject metaObject = configuration.newMetaObject(rowValue);
+      boolean foundValues = false;
+      for (int i = 0; i < values.length; i++) {
+        final PipelinedColumn column = chunk.columns.get(i);
+        if (values[i] != null) {
+          foundValues = true;
+        }
+        if (values[i] != null || (configuration.isCallSettersOnNulls() && !column.primitive)) {
+          // gcode issue #377, call setter on nulls (value is not 'found')
+          metaObject.setValue(column.property, values[i]);
+        }
+      }
+      rowValues.add(foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null);
+    }
+    return rowValues;
+  }
+
   //
   // GET VALUE FROM ROW FOR SIMPLE RESULT MAP
   //
@@ -811,11 +1068,21 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (executor.isCached(nestedQuery, key)) {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
         value = DEFERRED;
+      } else if (batchingNestedQueries && propertyMapping.getNestedBatchQueryId() != null
+          && !propertyMapping.isLazy() && !propertyMapping.isCompositeResult()) {
+        String batchId = propertyMapping.getNestedBatchQueryId() + ":" + propertyMapping.getBatchKey();
+        pendingBatchLoads.computeIfAbsent(batchId, k -> new ArrayList<>())
+            .add(new PendingBatchLoad(metaResultObject, propertyMapping, nestedQueryParameterObject));
+        value = DEFERRED;
       } else {
         final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
+        } else if (parallelNestedQueries) {
+          pendingParallelLoads.add(new PendingParallelLoad(metaResultObject, property, nestedQuery,
+              nestedQueryParameterObject, targetType, key, nestedBoundSql));
+          value = DEFERRED;
         } else {
           value = resultLoader.loadResult();
         }
@@ -824,6 +1091,164 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  /**
+   * Runs each batch select once per {@value #MAX_BATCH_KEYS} distinct keys of the rows that need it,
+   * and sets the nested results whose batch key matches the key of each row.
+   */
+  private void loadBatchedNestedQueries() throws SQLException {
+    batchingNestedQueries = false;
+    if (pendingBatchLoads.isEmpty()) {
+      return;
+    }
+    final ResultExtractor resultExtractor = new ResultExtractor(configuration, objectFactory);
+    for (List<PendingBatchLoad> loads : pendingBatchLoads.values()) {
+      final ResultMapping batchMapping = loads.get(0).propertyMapping;
+      final MappedStatement batchQuery = configuration.getMappedStatement(batchMapping.getNestedBatchQueryId());
+      final Set<Object> distinctKeys = new LinkedHashSet<>();
+      for (PendingBatchLoad load : loads) {
+        distinctKeys.add(load.key);
+      }
+      final List<Object> keys = new ArrayList<>(distinctKeys);
+      final Map<Object, List<Object>> nestedResults = new HashMap<>();
+      for (int from = 0; from < keys.size(); from += MAX_BATCH_KEYS) {
+        final List<Object> batchKeys = keys.subList(from, Math.min(from + MAX_BATCH_KEYS, keys.size()));
+        final List<Object> results = executor.query(batchQuery, wrapBatchKeys(batchKeys), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        for (Object result : results) {
+          final Object key = configuration.newMetaObject(result).getValue(batchMapping.getBatchKey());
+          nestedResults.computeIfAbsent(normalizeBatchKey(key), k -> new ArrayList<>()).add(result);
+        }
+      }
+      for (PendingBatchLoad load : loads) {
+        final List<Object> results = nestedResults.getOrDefault(normalizeBatchKey(load.key), Collections.emptyList());
+        final Object value = resultExtractor.extractObjectFromList(new ArrayList<>(results), load.propertyMapping.getJavaType());
+        if (value != null) {
+          load.metaObject.setValue(load.propertyMapping.getProperty(), value);
+        }
+      }
+    }
+    pendingBatchLoads.clear();
+  }
+
+  /**
+   * Runs the distinct eager nested selects of the result sets on up to {@code nestedSelectParallelism} connections:
+   * the one of the session and extra ones opened from the data source, each in its own read transaction.
+   * The calling thread takes part, so the loads complete even when no pool thread is free.
+   */
+  private void loadParallelNestedQueries() throws SQLException {
+    parallelNestedQueries = false;
+    if (pendingParallelLoads.isEmpty()) {
+      return;
+    }
+    final Map<CacheKey, List<PendingParallelLoad>> loadsByKey = new LinkedHashMap<>();
+    for (PendingParallelLoad load : pendingParallelLoads) {
+      loadsByKey.computeIfAbsent(load.key, k -> new ArrayList<>()).add(load);
+    }
+    pendingParallelLoads.clear();
+    final List<List<PendingParallelLoad>> loads = new ArrayList<>(loadsByKey.values());
+    final Object[] values = new Object[loads.size()];
+    final AtomicInteger nextLoad = new AtomicInteger();
+    final int extraConnections = Math.min(mappedStatement.getNestedSelectParallelism(), loads.size()) - 1;
+    final List<Future<?>> workers = new ArrayList<>();
+    final List<AtomicBoolean> workerStarts = new ArrayList<>();
+    // read on this thread, to which the deadline of the outer select may be bound
+    final Deadline deadline = executor.getDeadline();
+    for (int i = 0; i < extraConnections; i++) {
+      final AtomicBoolean started = new AtomicBoolean();
+      workerStarts.add(started);
+      workers.add(configuration.getAsyncExecutorService().submit(() -> {
+        if (!started.compareAndSet(false, true)) {
+          return null;
+        }
+        final Executor parallelExecutor = newParallelExecutor(deadline);
+        try {
+          runParallelLoads(parallelExecutor, loads, values, nextLoad);
+        } finally {
+          parallelExecutor.close(false);
+          ErrorContext.instance().reset();
+        }
+        return null;
+      }));
+    }
+    Throwable failure = null;
+    try {
+      runParallelLoads(executor, loads, values, nextLoad);
+    } catch (SQLException | RuntimeException e) {
+      failure = e;
+    }
+    for (int i = 0; i < workers.size(); i++) {
+      // a worker that has not started yet has nothing left to load
+      if (workerStarts.get(i).compareAndSet(false, true)) {
+        continue;
+      }
+      try {
+        workers.get(i).get();
+      } catch (ExecutionException e) {
+        failure = failure == null ? e.getCause() : failure;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = failure == null ? e : failure;
+      }
+    }
+    if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure != null) {
+      throw new ExecutorException("Error running nested selects in parallel.  Cause: " + failure, failure);
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        for (PendingParallelLoad load : loads.get(i)) {
+          load.metaObject.setValue(load.property, values[i]);
+        }
+      }
+    }
+  }
+
+  private void runParallelLoads(Executor loadExecutor, List<List<PendingParallelLoad>> loads, Object[] values,
+      AtomicInteger nextLoad) throws SQLException {
+    try {
+      for (int i = nextLoad.getAndIncrement(); i < loads.size(); i = nextLoad.getAndIncrement()) {
+        final PendingParallelLoad load = loads.get(i).get(0);
+        values[i] = new ResultLoader(configuration, loadExecutor, load.nestedQuery, load.parameterObject,
+            load.targetType, load.key, load.boundSql).loadResult();
+      }
+    } catch (SQLException | RuntimeException e) {
+      // let the other connections stop after their current select
+      nextLoad.set(loads.size());
+      throw e;
+    }
+  }
+
+  private Executor newParallelExecutor(Deadline deadline) {
+    final Environment environment = configuration.getEnvironment();
+    if (environment == null || environment.getDataSource() == null) {
+      throw new ExecutorException("Nested selects cannot run in parallel.  DataSource was not configured.");
+    }
+    final Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+    final Executor parallelExecutor = configuration.newExecutor(tx, ExecutorType.SIMPLE);
+    if (deadline != null) {
+      parallelExecutor.setDeadline(deadline);
+    }
+    return parallelExecutor;
+  }
+
+  private Object wrapBatchKeys(List<Object> keys) {
+    final ParamMap<Object> parameterObject = new ParamMap<>();
+    parameterObject.put("list", keys);
+    parameterObject.put("collection", keys);
+    parameterObject.put("array", keys.toArray());
+    return parameterObject;
+  }
+
+  private Object normalizeBatchKey(Object key) {
+    // a key read as an Integer from the row must match the same key read as a Long from its nested result
+    if (key instanceof Number && !(key instanceof Double) && !(key instanceof Float)) {
+      return new BigDecimal(key.toString()).stripTrailingZeros();
+    }
+    return key;
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -26,6 +26,7 @@ import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
@@ -35,6 +36,7 @@ import org.apache.ibatis.session.RowBounds;
 public class RoutingStatementHandler implements StatementHandler {
 
   private final StatementHandler delegate;
+  private final Deadline deadline;
 
   /**
    * RoutingStatementHandler的构造器，根据StatementType变量来创建不同的StatementHandler实现，作为它的代理
@@ -65,7 +67,8 @@ public class RoutingStatementHandler implements StatementHandler {
       default:
         throw new ExecutorException("Unknown statement type: " + ms.getStatementType());
     }
-
+    /*截止时间在创建时确定，执行时缩短查询超时并到期取消语句*/
+    deadline = executor.getDeadline();
   }
 
   /**
@@ -94,17 +97,17 @@ public class RoutingStatementHandler implements StatementHandler {
 
   @Override
   public int update(Statement statement) throws SQLException {
-    return delegate.update(statement);
+    return StatementDeadline.execute(statement, deadline, () -> delegate.update(statement));
   }
 
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
-    return delegate.query(statement, resultHandler);
+    return StatementDeadline.execute(statement, deadline, () -> delegate.query(statement, resultHandler));
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
-    return delegate.queryCursor(statement);
+    return StatementDeadline.execute(statement, deadline, () -> delegate.queryCursor(statement));
   }
 
   @Override
@@ -0,0 +1,125 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.Deadline;
+
+/**
+ * Runs a statement within a deadline: the query timeout is shrunk to the seconds left, and as drivers only honour
+ * whole seconds, if at all, the statement is also cancelled from a timer when the deadline passes. The query timeout
+ * is restored afterwards, for statements that are reused.
+ */
+public final class StatementDeadline {
+
+  private static final Log log = LogFactory.getLog(StatementDeadline.class);
+
+  private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-statement-deadline");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    TIMER.setRemoveOnCancelPolicy(true);
+  }
+
+  private final Statement statement;
+  private boolean done;
+  private boolean cancelled;
+
+  private StatementDeadline(Statement statement) {
+    this.statement = statement;
+  }
+
+  @FunctionalInterface
+  public interface StatementCall<T> {
+    T call() throws SQLException;
+  }
+
+  /**
+   * @param deadline the deadline of the statement, null for none
+   * @throws SQLTimeoutException if the deadline passes before or while the statement runs
+   */
+  public static <T> T execute(Statement statement, Deadline deadline, StatementCall<T> call) throws SQLException {
+    if (deadline == null) {
+      return call.call();
+    }
+    long remainingNanos = deadline.remaining(TimeUnit.NANOSECONDS);
+    if (remainingNanos <= 0) {
+      throw new SQLTimeoutException("Deadline exceeded before executing the statement.");
+    }
+    int queryTimeout = statement.getQueryTimeout();
+    int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999L)));
+    if (queryTimeout == 0 || remainingSeconds < queryTimeout) {
+      statement.setQueryTimeout(remainingSeconds);
+    }
+    StatementDeadline watch = new StatementDeadline(statement);
+    ScheduledFuture<?> cancellation = TIMER.schedule(watch::cancel, remainingNanos, TimeUnit.NANOSECONDS);
+    try {
+      return call.call();
+    } catch (SQLException e) {
+      if (watch.isCancelled()) {
+        throw new SQLTimeoutException("Statement cancelled as its deadline passed.  Cause: " + e, e);
+      }
+      throw e;
+    } finally {
+      watch.finish();
+      cancellation.cancel(false);
+      if (queryTimeout == 0 || remainingSeconds < queryTimeout) {
+        restoreQueryTimeout(statement, queryTimeout);
+      }
+    }
+  }
+
+  private static void restoreQueryTimeout(Statement statement, int queryTimeout) {
+    try {
+      statement.setQueryTimeout(queryTimeout);
+    } catch (SQLException e) {
+      // a statement cancelled or closed meanwhile is not reused
+      log.debug("Error restoring query timeout.  Cause: " + e);
+    }
+  }
+
+  private synchronized void cancel() {
+    if (done) {
+      return;
+    }
+    try {
+      statement.cancel();
+      cancelled = true;
+    } catch (SQLException e) {
+      log.debug("Error cancelling statement past its deadline.  Cause: " + e);
+    }
+  }
+
+  private synchronized void finish() {
+    done = true;
+  }
+
+  private synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+}
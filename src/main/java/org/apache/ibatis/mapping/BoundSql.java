@@ -73,4 +73,13 @@ public class BoundSql {
   public Object getAdditionalParameter(String name) {
     return metaParameters.getValue(name);
   }
+
+  /**
+   * @return a copy with another SQL and parameter mappings, but the same parameter object and additional parameters
+   */
+  public BoundSql withSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings) {
+    BoundSql boundSql = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+    boundSql.additionalParameters.putAll(additionalParameters);
+    return boundSql;
+  }
 }
@@ -24,13 +24,20 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSnapshot;
+import org.apache.ibatis.cache.CacheStatistics;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.NegativeResultCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SnapshotCache;
+import org.apache.ibatis.cache.decorators.StatisticsCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -43,9 +50,13 @@ public class CacheBuilder {
   private final List<Class<? extends Cache>> decorators;
   private Integer size;
   private Long clearInterval;
+  private Long timeToLive;
+  private Long negativeTimeToLive;
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private CacheStatistics statistics;
+  private CacheSnapshot snapshot;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -74,6 +85,19 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
+  /**
+   * @param negativeTimeToLive How many milliseconds selects that returned nothing are cached apart, or null to cache them as any other result
+   */
+  public CacheBuilder negativeTimeToLive(Long negativeTimeToLive) {
+    this.negativeTimeToLive = negativeTimeToLive;
+    return this;
+  }
+
   public CacheBuilder readWrite(boolean readWrite) {
     this.readWrite = readWrite;
     return this;
@@ -84,6 +108,23 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * @param statistics The statistics the built cache records, or null to record none
+   */
+  public CacheBuilder statistics(CacheStatistics statistics) {
+    this.statistics = statistics;
+    return this;
+  }
+
+  /**
+   * @param snapshot The snapshot the built cache is written to and preloaded from, or null for none.
+   *        Its {@code snapshotFile}, {@code snapshotInterval} and {@code snapshotSize} are set from the properties.
+   */
+  public CacheBuilder snapshot(CacheSnapshot snapshot) {
+    this.snapshot = snapshot;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -94,14 +135,20 @@ public class CacheBuilder {
     Cache cache = newBaseCacheInstance(implementation, id);
     setCacheProperties(cache);
     // issue #352, do not apply decorators to custom caches
-    if (PerpetualCache.class.equals(cache.getClass())) {
+    if (PerpetualCache.class.equals(cache.getClass()) || TinyLfuCache.class.equals(cache.getClass())) {
+      boolean threadSafe = TinyLfuCache.class.equals(cache.getClass()) && decorators.isEmpty();
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
       }
-      cache = setStandardDecorators(cache);
-    } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
-      cache = new LoggingCache(cache);
+      cache = setStandardDecorators(cache, threadSafe);
+    } else {
+      if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
+        cache = new LoggingCache(cache);
+      }
+      if (statistics != null) {
+        cache = new StatisticsCache(cache, statistics);
+      }
     }
     return cache;
   }
@@ -113,9 +160,13 @@ public class CacheBuilder {
         decorators.add(LruCache.class);
       }
     }
+    // TinyLfuCache is a thread safe base cache with its own eviction, so as an eviction it replaces PerpetualCache
+    if (PerpetualCache.class.equals(implementation) && decorators.remove(TinyLfuCache.class)) {
+      implementation = TinyLfuCache.class;
+    }
   }
 
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setStandardDecorators(Cache cache, boolean threadSafe) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
@@ -125,13 +176,35 @@ public class CacheBuilder {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
       }
+      if (timeToLive != null) {
+        cache = new ExpiringCache(cache);
+        ((ExpiringCache) cache).setTimeToLive(timeToLive);
+        setCacheProperties(cache);
+      }
       if (readWrite) {
         cache = new SerializedCache(cache);
+        setCacheProperties(cache);
+      }
+      if (snapshot != null) {
+        setProperties(snapshot);
+        // the snapshot reads the entries from a background thread
+        cache = new SnapshotCache(threadSafe ? cache : new SynchronizedCache(cache), snapshot);
+      }
+      if (negativeTimeToLive != null) {
+        cache = new NegativeResultCache(cache);
+        ((NegativeResultCache) cache).setNegativeTimeToLive(negativeTimeToLive);
+        setCacheProperties(cache);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (statistics != null) {
+        cache = new StatisticsCache(cache, statistics);
+      }
+      if (!threadSafe) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
+        setCacheProperties(cache);
       }
       return cache;
     } catch (Exception e) {
@@ -140,8 +213,20 @@ public class CacheBuilder {
   }
 
   private void setCacheProperties(Cache cache) {
+    setProperties(cache);
+    if (InitializingObject.class.isAssignableFrom(cache.getClass())) {
+      try {
+        ((InitializingObject) cache).initialize();
+      } catch (Exception e) {
+        throw new CacheException("Failed cache initialization for '"
+          + cache.getId() + "' on '" + cache.getClass().getName() + "'", e);
+      }
+    }
+  }
+
+  private void setProperties(Object target) {
     if (properties != null) {
-      MetaObject metaCache = SystemMetaObject.forObject(cache);
+      MetaObject metaCache = SystemMetaObject.forObject(target);
       for (Map.Entry<Object, Object> entry : properties.entrySet()) {
         String name = (String) entry.getKey();
         String value = (String) entry.getValue();
@@ -176,14 +261,6 @@ public class CacheBuilder {
         }
       }
     }
-    if (InitializingObject.class.isAssignableFrom(cache.getClass())) {
-      try {
-        ((InitializingObject) cache).initialize();
-      } catch (Exception e) {
-        throw new CacheException("Failed cache initialization for '"
-          + cache.getId() + "' on '" + cache.getClass().getName() + "'", e);
-      }
-    }
   }
 
   private Cache newBaseCacheInstance(Class<? extends Cache> cacheClass, String id) {
@@ -17,7 +17,9 @@ package org.apache.ibatis.mapping;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -25,6 +27,7 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.parsing.TableNameParser;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
 
@@ -46,6 +49,8 @@ public final class MappedStatement {
   private List<ResultMap> resultMaps;
   private boolean flushCacheRequired;
   private boolean useCache;
+  private boolean useLocalCache;
+  private int nestedSelectParallelism;
   private boolean resultOrdered;
   private SqlCommandType sqlCommandType;
   private KeyGenerator keyGenerator;
@@ -56,6 +61,7 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private Set<String> tables;
 
   MappedStatement() {
     // constructor disabled
@@ -72,6 +78,7 @@ public final class MappedStatement {
       mappedStatement.resultSetType = ResultSetType.DEFAULT;
       mappedStatement.parameterMap = new ParameterMap.Builder(configuration, "defaultParameterMap", null, new ArrayList<>()).build();
       mappedStatement.resultMaps = new ArrayList<>();
+      mappedStatement.useLocalCache = true;
       mappedStatement.sqlCommandType = sqlCommandType;
       mappedStatement.keyGenerator = configuration.isUseGeneratedKeys() && SqlCommandType.INSERT.equals(sqlCommandType) ? Jdbc3KeyGenerator.INSTANCE : NoKeyGenerator.INSTANCE;
       String logId = id;
@@ -139,6 +146,16 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder useLocalCache(boolean useLocalCache) {
+      mappedStatement.useLocalCache = useLocalCache;
+      return this;
+    }
+
+    public Builder nestedSelectParallelism(Integer nestedSelectParallelism) {
+      mappedStatement.nestedSelectParallelism = nestedSelectParallelism == null ? 0 : nestedSelectParallelism;
+      return this;
+    }
+
     public Builder resultOrdered(boolean resultOrdered) {
       mappedStatement.resultOrdered = resultOrdered;
       return this;
@@ -183,6 +200,20 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder tables(String tables) {
+      String[] names = delimitedStringToArray(tables);
+      if (names == null) {
+        mappedStatement.tables = null;
+      } else {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+          normalized.add(TableNameParser.normalize(name));
+        }
+        mappedStatement.tables = Collections.unmodifiableSet(normalized);
+      }
+      return this;
+    }
+
     public MappedStatement build() {
       assert mappedStatement.configuration != null;
       assert mappedStatement.id != null;
@@ -257,6 +288,34 @@ public final class MappedStatement {
     return useCache;
   }
 
+  public boolean isUseLocalCache() {
+    return useLocalCache;
+  }
+
+  /**
+   * @return Whether queries of this statement bypass the local cache: it is flagged with {@code useLocalCache="false"}
+   *         and it cannot run nested selects, which rely on the local cache to resolve circular references
+   */
+  public boolean isLocalCacheSkipped() {
+    if (useLocalCache || hasNestedResultMaps) {
+      return false;
+    }
+    for (ResultMap resultMap : resultMaps) {
+      if (resultMap.hasNestedQueries()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return The number of eager nested selects of a result set that may run at the same time, each one on its own
+   *         connection; 0 or 1 to run them one after another on the connection of the session
+   */
+  public int getNestedSelectParallelism() {
+    return nestedSelectParallelism;
+  }
+
   public boolean isResultOrdered() {
     return resultOrdered;
   }
@@ -293,6 +352,13 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * @return The tables declared as read or written by this statement, null if not declared
+   */
+  public Set<String> getTables() {
+    return tables;
+  }
+
   public BoundSql getBoundSql(Object parameterObject) {
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
@@ -38,6 +38,8 @@ public class ResultMapping {
   private TypeHandler<?> typeHandler;
   private String nestedResultMapId;
   private String nestedQueryId;
+  private String nestedBatchQueryId;
+  private String batchKey;
   private Set<String> notNullColumns;
   private String columnPrefix;
   private List<ResultFlag> flags;
@@ -132,6 +134,22 @@ public class ResultMapping {
       return this;
     }
 
+    /**
+     * @param nestedBatchQueryId The statement loading the nested results of many rows at once, given the list of their keys
+     */
+    public Builder nestedBatchQueryId(String nestedBatchQueryId) {
+      resultMapping.nestedBatchQueryId = nestedBatchQueryId;
+      return this;
+    }
+
+    /**
+     * @param batchKey The property of each nested result holding the key of the row it belongs to
+     */
+    public Builder batchKey(String batchKey) {
+      resultMapping.batchKey = batchKey;
+      return this;
+    }
+
     public ResultMapping build() {
       // lock down collections
       resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -154,6 +172,9 @@ public class ResultMapping {
       if (resultMapping.nestedResultMapId == null && resultMapping.column == null && resultMapping.composites.isEmpty()) {
         throw new IllegalStateException("Mapping is missing column attribute for property " + resultMapping.property);
       }
+      if (resultMapping.nestedBatchQueryId != null && (resultMapping.nestedQueryId == null || resultMapping.batchKey == null)) {
+        throw new IllegalStateException("A batch select needs both a select and a batchKey in property " + resultMapping.property);
+      }
       if (resultMapping.getResultSet() != null) {
         int numColumns = 0;
         if (resultMapping.column != null) {
@@ -247,6 +268,14 @@ public class ResultMapping {
     return lazy;
   }
 
+  public String getNestedBatchQueryId() {
+    return nestedBatchQueryId;
+  }
+
+  public String getBatchKey() {
+    return batchKey;
+  }
+
   public void setLazy(boolean lazy) {
     this.lazy = lazy;
   }
@@ -287,6 +316,8 @@ public class ResultMapping {
     //sb.append(", typeHandler=").append(typeHandler); // typeHandler also doesn't have a useful .toString()
     sb.append(", nestedResultMapId='").append(nestedResultMapId).append('\'');
     sb.append(", nestedQueryId='").append(nestedQueryId).append('\'');
+    sb.append(", nestedBatchQueryId='").append(nestedBatchQueryId).append('\'');
+    sb.append(", batchKey='").append(batchKey).append('\'');
     sb.append(", notNullColumns=").append(notNullColumns);
     sb.append(", columnPrefix='").append(columnPrefix).append('\'');
     sb.append(", flags=").append(flags);
@@ -0,0 +1,168 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.parsing;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds the tables an SQL statement reads or writes.
+ * <p>
+ * This is not a full SQL parser: it collects the names that follow {@code FROM}, {@code JOIN},
+ * {@code UPDATE}, {@code INTO}, {@code USING} and {@code TABLE}, including comma separated lists
+ * and subqueries. It may find a few names that are not tables (e.g. {@code EXTRACT(YEAR FROM col)}),
+ * which is harmless for cache invalidation, but should not miss any table of ordinary DML.
+ * Names are lower cased and stripped of their quotes and schema.
+ */
+public class TableNameParser {
+
+  private static final Set<String> TABLE_KEYWORDS = new HashSet<>(Arrays.asList(
+      "FROM", "JOIN", "UPDATE", "INTO", "USING", "TABLE"));
+  private static final Set<String> LIST_KEYWORDS = new HashSet<>(Arrays.asList(
+      "FROM", "JOIN", "UPDATE"));
+  private static final Set<String> TABLE_MODIFIERS = new HashSet<>(Arrays.asList(
+      "ONLY", "LATERAL", "IGNORE", "LOW_PRIORITY", "QUICK"));
+  private static final Set<String> LIST_END_KEYWORDS = new HashSet<>(Arrays.asList(
+      "WHERE", "ON", "SET", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "UNION", "EXCEPT",
+      "INTERSECT", "MINUS", "VALUES", "SELECT", "WINDOW", "RETURNING", "FOR", "CONNECT", "START"));
+
+  private TableNameParser() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * @param sql An SQL statement, usually the one of a {@code BoundSql}
+   * @return The tables found, empty if none could be found (e.g. a stored procedure call)
+   */
+  public static Set<String> parse(String sql) {
+    Set<String> tables = new LinkedHashSet<>();
+    Deque<Boolean> outerLists = new ArrayDeque<>();
+    boolean inList = false;
+    boolean expectTable = false;
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '\'') {
+        i = skipQuoted(sql, i, '\'');
+      } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? length : end + 1;
+      } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+      } else if (c == '(') {
+        outerLists.push(inList);
+        inList = false;
+        expectTable = false;
+        i++;
+      } else if (c == ')') {
+        // a subquery in place of a table is followed by its alias or by the rest of the list
+        inList = !outerLists.isEmpty() && outerLists.pop();
+        expectTable = false;
+        i++;
+      } else if (c == ',') {
+        expectTable = inList;
+        i++;
+      } else if (c == ';') {
+        inList = false;
+        expectTable = false;
+        i++;
+      } else if (isNameStart(c)) {
+        StringBuilder name = new StringBuilder();
+        i = readName(sql, i, name);
+        String word = name.toString();
+        String keyword = word.toUpperCase(Locale.ENGLISH);
+        if (expectTable) {
+          if (!TABLE_MODIFIERS.contains(keyword)) {
+            tables.add(normalize(word));
+            expectTable = false;
+          }
+        } else if (TABLE_KEYWORDS.contains(keyword)) {
+          expectTable = true;
+          inList = LIST_KEYWORDS.contains(keyword);
+        } else if (LIST_END_KEYWORDS.contains(keyword)) {
+          inList = false;
+        }
+      } else {
+        i++;
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * @param name A table name, possibly quoted and qualified by a schema
+   * @return The table name as returned by {@link #parse(String)}
+   */
+  public static String normalize(String name) {
+    String table = name.trim();
+    int dot = table.lastIndexOf('.');
+    if (dot >= 0) {
+      table = table.substring(dot + 1);
+    }
+    StringBuilder builder = new StringBuilder(table.length());
+    for (int i = 0; i < table.length(); i++) {
+      char c = table.charAt(i);
+      if (c != '"' && c != '`' && c != '[' && c != ']') {
+        builder.append(c);
+      }
+    }
+    return builder.toString().toLowerCase(Locale.ENGLISH);
+  }
+
+  private static boolean isNameStart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@'
+        || c == '"' || c == '`' || c == '[';
+  }
+
+  private static int readName(String sql, int start, StringBuilder name) {
+    int length = sql.length();
+    int i = start;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (c == '"' || c == '`') {
+        int end = skipQuoted(sql, i, c);
+        name.append(sql, i, end);
+        i = end;
+      } else if (c == '[') {
+        int end = sql.indexOf(']', i);
+        end = end < 0 ? length : end + 1;
+        name.append(sql, i, end);
+        i = end;
+      } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@' || c == '.') {
+        name.append(c);
+        i++;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private static int skipQuoted(String sql, int start, char quote) {
+    int end = sql.indexOf(quote, start + 1);
+    return end < 0 ? sql.length() : end + 1;
+  }
+
+}
@@ -17,6 +17,7 @@ package org.apache.ibatis.session;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -25,6 +26,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,12 +42,19 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheDependencyRegistry;
+import org.apache.ibatis.cache.CacheSnapshot;
+import org.apache.ibatis.cache.CacheStatistics;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidation;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
@@ -47,10 +62,13 @@ import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.executor.StatementCacheStatistics;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.Dialect;
+import org.apache.ibatis.executor.pagination.DialectRegistry;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
@@ -113,11 +131,34 @@ public class Configuration {
   protected boolean callSettersOnNulls;
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
+  protected boolean cacheStatisticsEnabled;
+  protected boolean cacheStatisticsJmxEnabled;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
   protected Class<? extends VFS> vfsImpl;
   protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
+  protected Integer localCacheSize;
+  protected Long localCacheMaxBytes;
+  protected Integer asyncExecutorThreads;
+  protected Integer batchFlushSize;
+  protected Long batchFlushBytes;
+  protected Long batchFlushInterval;
+  protected boolean batchRetainParameters = true;
+  protected boolean batchGroupBySql;
+  protected List<String> batchStatementOrder = Collections.emptyList();
+  protected boolean batchMultiRowInsert;
+  protected int batchMultiRowInsertMaxParameters = 2000;
+  protected Integer reuseStatementCacheSize;
+  protected final StatementCacheStatistics statementCacheStatistics = new StatementCacheStatistics();
+  protected boolean physicalPagination;
+  protected Dialect paginationDialect;
+  protected final DialectRegistry dialectRegistry = new DialectRegistry();
+  protected final Map<String, MappedStatement> countStatements = new ConcurrentHashMap<>();
+  protected boolean concurrentPageCount;
+  protected int resultMappingThreads;
+  protected ExecutorService asyncExecutorService;
+  protected CacheInvalidationScope cacheInvalidationScope = CacheInvalidationScope.NAMESPACE;
   protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
@@ -149,11 +190,15 @@ public class Configuration {
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry();
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
+  protected final CacheDependencyRegistry cacheDependencyRegistry = new CacheDependencyRegistry();
+  protected CacheInvalidationBus cacheInvalidationBus;
 
   protected final Map<String, MappedStatement> mappedStatements = new StrictMap<MappedStatement>("Mapped Statements collection")
       .conflictMessageProducer((savedValue, targetValue) ->
           ". please check " + savedValue.getResource() + " and " + targetValue.getResource());
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
+  protected final Map<String, CacheStatistics> cacheStatistics = new ConcurrentHashMap<>();
+  protected final Map<String, CacheSnapshot> cacheSnapshots = new ConcurrentHashMap<>();
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
@@ -191,6 +236,7 @@ public class Configuration {
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -463,6 +509,309 @@ public class Configuration {
     this.localCacheScope = localCacheScope;
   }
 
+  public Integer getLocalCacheSize() {
+    return localCacheSize;
+  }
+
+  /**
+   * @param localCacheSize The maximum number of query results kept in the local cache of a session, null for no limit
+   */
+  public void setLocalCacheSize(Integer localCacheSize) {
+    this.localCacheSize = localCacheSize;
+  }
+
+  public Long getLocalCacheMaxBytes() {
+    return localCacheMaxBytes;
+  }
+
+  /**
+   * @param localCacheMaxBytes The estimated memory budget of the local cache of a session in bytes, null for none
+   */
+  public void setLocalCacheMaxBytes(Long localCacheMaxBytes) {
+    this.localCacheMaxBytes = localCacheMaxBytes;
+  }
+
+  public Integer getBatchFlushSize() {
+    return batchFlushSize;
+  }
+
+  /**
+   * @param batchFlushSize The number of updates after which a batch executor runs its batches without waiting for
+   *        a flush or commit, null for no limit
+   */
+  public void setBatchFlushSize(Integer batchFlushSize) {
+    this.batchFlushSize = batchFlushSize;
+  }
+
+  public Long getBatchFlushBytes() {
+    return batchFlushBytes;
+  }
+
+  /**
+   * @param batchFlushBytes The estimated size in bytes of the SQL and parameters of the pending updates after which a
+   *        batch executor runs its batches, null for no limit
+   */
+  public void setBatchFlushBytes(Long batchFlushBytes) {
+    this.batchFlushBytes = batchFlushBytes;
+  }
+
+  public Long getBatchFlushInterval() {
+    return batchFlushInterval;
+  }
+
+  /**
+   * @param batchFlushInterval The number of milliseconds since its first pending update after which a batch executor
+   *        runs its batches when the next update is added, null for no limit
+   */
+  public void setBatchFlushInterval(Long batchFlushInterval) {
+    this.batchFlushInterval = batchFlushInterval;
+  }
+
+  public boolean isBatchRetainParameters() {
+    return batchRetainParameters;
+  }
+
+  /**
+   * @param batchRetainParameters Whether the batch results keep the parameter objects of their updates, false to keep
+   *        only the update counts
+   */
+  public void setBatchRetainParameters(boolean batchRetainParameters) {
+    this.batchRetainParameters = batchRetainParameters;
+  }
+
+  public boolean isBatchGroupBySql() {
+    return batchGroupBySql;
+  }
+
+  /**
+   * @param batchGroupBySql Whether a batch executor adds each update to the open batch of the same statement and SQL,
+   *        instead of starting a new batch whenever the previous update was a different one
+   */
+  public void setBatchGroupBySql(boolean batchGroupBySql) {
+    this.batchGroupBySql = batchGroupBySql;
+  }
+
+  public List<String> getBatchStatementOrder() {
+    return batchStatementOrder;
+  }
+
+  /**
+   * @param batchStatementOrder The ids of the statements whose grouped batches run first, in this order, the others
+   *        following in the order they were opened
+   */
+  public void setBatchStatementOrder(List<String> batchStatementOrder) {
+    this.batchStatementOrder = batchStatementOrder == null ? Collections.emptyList() : batchStatementOrder;
+  }
+
+  public boolean isBatchMultiRowInsert() {
+    return batchMultiRowInsert;
+  }
+
+  /**
+   * @param batchMultiRowInsert Whether a batch executor sends the rows of a single row insert as multi row
+   *        {@code INSERT ... VALUES (...), (...)} statements instead of adding each row to a JDBC batch
+   */
+  public void setBatchMultiRowInsert(boolean batchMultiRowInsert) {
+    this.batchMultiRowInsert = batchMultiRowInsert;
+  }
+
+  public int getBatchMultiRowInsertMaxParameters() {
+    return batchMultiRowInsertMaxParameters;
+  }
+
+  /**
+   * @param batchMultiRowInsertMaxParameters The maximum number of parameters of a multi row insert, which bounds the
+   *        number of rows it holds
+   */
+  public void setBatchMultiRowInsertMaxParameters(int batchMultiRowInsertMaxParameters) {
+    this.batchMultiRowInsertMaxParameters = batchMultiRowInsertMaxParameters;
+  }
+
+  public Integer getReuseStatementCacheSize() {
+    return reuseStatementCacheSize;
+  }
+
+  /**
+   * @param reuseStatementCacheSize The maximum number of statements a reuse executor keeps open, closing the least
+   *        recently used ones beyond it, null for no limit
+   */
+  public void setReuseStatementCacheSize(Integer reuseStatementCacheSize) {
+    this.reuseStatementCacheSize = reuseStatementCacheSize;
+  }
+
+  public boolean isPhysicalPagination() {
+    return physicalPagination;
+  }
+
+  /**
+   * @param physicalPagination Whether selects with row bounds are paged by the database, with the dialect the
+   *        dialect registry holds for the database id
+   */
+  public void setPhysicalPagination(boolean physicalPagination) {
+    this.physicalPagination = physicalPagination;
+  }
+
+  public Dialect getPaginationDialect() {
+    return paginationDialect;
+  }
+
+  /**
+   * @param paginationDialect The dialect that pages selects with row bounds whatever the database id, null to look it
+   *        up in the dialect registry when physical pagination is on
+   */
+  public void setPaginationDialect(Dialect paginationDialect) {
+    this.paginationDialect = paginationDialect;
+  }
+
+  public DialectRegistry getDialectRegistry() {
+    return dialectRegistry;
+  }
+
+  /**
+   * @return The statements counting the rows of paged selects, derived while the statements are run
+   */
+  public Map<String, MappedStatement> getCountStatements() {
+    return countStatements;
+  }
+
+  public boolean isConcurrentPageCount() {
+    return concurrentPageCount;
+  }
+
+  /**
+   * @param concurrentPageCount Whether the count of a paged select runs on the async executor service, in a session of
+   *        its own, while the page is read
+   */
+  public void setConcurrentPageCount(boolean concurrentPageCount) {
+    this.concurrentPageCount = concurrentPageCount;
+  }
+
+  /**
+   * @return The hits, misses and evictions of the statements kept open by all the reuse executors
+   */
+  public StatementCacheStatistics getStatementCacheStatistics() {
+    return statementCacheStatistics;
+  }
+
+  public int getResultMappingThreads() {
+    return resultMappingThreads;
+  }
+
+  /**
+   * @param resultMappingThreads The number of async executor threads building the objects of a simple result map while
+   *        the calling thread reads the rows, 0 to map every row on the calling thread
+   */
+  public void setResultMappingThreads(int resultMappingThreads) {
+    this.resultMappingThreads = resultMappingThreads;
+  }
+
+  public Integer getAsyncExecutorThreads() {
+    return asyncExecutorThreads;
+  }
+
+  /**
+   * @param asyncExecutorThreads The number of threads running the mapper methods that return a future, null to use
+   *        virtual threads where available, or else as many threads as the pooled data source has active connections
+   */
+  public void setAsyncExecutorThreads(Integer asyncExecutorThreads) {
+    this.asyncExecutorThreads = asyncExecutorThreads;
+  }
+
+  /**
+   * @return The executor service running the mapper methods that return a {@code CompletableFuture}, created on first use
+   */
+  public synchronized ExecutorService getAsyncExecutorService() {
+    if (asyncExecutorService == null) {
+      asyncExecutorService = newAsyncExecutorService();
+    }
+    return asyncExecutorService;
+  }
+
+  public synchronized void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+    this.asyncExecutorService = asyncExecutorService;
+  }
+
+  protected ExecutorService newAsyncExecutorService() {
+    if (asyncExecutorThreads == null) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        // no virtual threads before Java 21
+      }
+    }
+    int threads;
+    if (asyncExecutorThreads != null) {
+      threads = asyncExecutorThreads;
+    } else if (environment != null && environment.getDataSource() instanceof PooledDataSource) {
+      threads = ((PooledDataSource) environment.getDataSource()).getPoolMaximumActiveConnections();
+    } else {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    AtomicInteger threadNumber = new AtomicInteger();
+    ThreadPoolExecutor executorService = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executorService.allowCoreThreadTimeOut(true);
+    return executorService;
+  }
+
+  public CacheInvalidationScope getCacheInvalidationScope() {
+    return cacheInvalidationScope;
+  }
+
+  public void setCacheInvalidationScope(CacheInvalidationScope cacheInvalidationScope) {
+    this.cacheInvalidationScope = cacheInvalidationScope;
+  }
+
+  public CacheDependencyRegistry getCacheDependencyRegistry() {
+    return cacheDependencyRegistry;
+  }
+
+  public CacheInvalidationBus getCacheInvalidationBus() {
+    return cacheInvalidationBus;
+  }
+
+  /**
+   * Publishes the caches cleared and the tables invalidated by the sessions of this configuration to the bus,
+   * and applies those published by other nodes.
+   */
+  public void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+    this.cacheInvalidationBus = cacheInvalidationBus;
+    if (cacheInvalidationBus != null) {
+      cacheInvalidationBus.subscribe(this::applyCacheInvalidation);
+    }
+  }
+
+  protected void applyCacheInvalidation(CacheInvalidation invalidation) {
+    for (String cacheId : invalidation.getCacheIds()) {
+      if (caches.containsKey(cacheId)) {
+        caches.get(cacheId).clear();
+      }
+    }
+    if (!invalidation.getTables().isEmpty()) {
+      cacheDependencyRegistry.invalidate(invalidation.getTables());
+    }
+  }
+
+  public boolean isCacheStatisticsEnabled() {
+    return cacheStatisticsEnabled;
+  }
+
+  public void setCacheStatisticsEnabled(boolean cacheStatisticsEnabled) {
+    this.cacheStatisticsEnabled = cacheStatisticsEnabled;
+  }
+
+  public boolean isCacheStatisticsJmxEnabled() {
+    return cacheStatisticsJmxEnabled;
+  }
+
+  public void setCacheStatisticsJmxEnabled(boolean cacheStatisticsJmxEnabled) {
+    this.cacheStatisticsJmxEnabled = cacheStatisticsJmxEnabled;
+  }
+
   public JdbcType getJdbcTypeForNull() {
     return jdbcTypeForNull;
   }
@@ -627,7 +976,8 @@ public class Configuration {
     }
     /*如果打开了缓存，使用CacheExecutor包装下之前的Executor，简单理解就是为Executor添加了cache功能*/
     if (cacheEnabled) {
-      executor = new CachingExecutor(executor);
+      executor = new CachingExecutor(executor,
+          cacheInvalidationScope == CacheInvalidationScope.TABLE ? cacheDependencyRegistry : null, cacheInvalidationBus);
     }
     /*将执行器executor设置到plugin节点中设置的所有插件中，作为插件的目标执行器*/
     executor = (Executor) interceptorChain.pluginAll(executor);
@@ -670,6 +1020,49 @@ public class Configuration {
     return caches.get(id);
   }
 
+  public void addCacheStatistics(CacheStatistics statistics) {
+    CacheStatistics previous = cacheStatistics.put(statistics.getId(), statistics);
+    if (previous != null) {
+      previous.unregisterMBean();
+    }
+    if (cacheStatisticsJmxEnabled) {
+      statistics.registerMBean(environment == null ? null : environment.getId());
+    }
+  }
+
+  public Collection<CacheStatistics> getCacheStatistics() {
+    return cacheStatistics.values();
+  }
+
+  /**
+   * @param id The id of a cache, i.e. its namespace
+   * @return The statistics of the cache, or null if it has none (the cacheStatisticsEnabled setting is off)
+   */
+  public CacheStatistics getCacheStatistics(String id) {
+    return cacheStatistics.get(id);
+  }
+
+  public void addCacheSnapshot(CacheSnapshot snapshot) {
+    CacheSnapshot previous = cacheSnapshots.put(snapshot.getId(), snapshot);
+    if (previous != null) {
+      previous.stop();
+    }
+  }
+
+  public Collection<CacheSnapshot> getCacheSnapshots() {
+    return cacheSnapshots.values();
+  }
+
+  /**
+   * Preloads the caches that have a {@code snapshotFile} from their snapshots, and starts writing them.
+   * Called by the {@link SqlSessionFactoryBuilder}.
+   */
+  public void loadCacheSnapshots() {
+    for (CacheSnapshot snapshot : cacheSnapshots.values()) {
+      snapshot.load(this);
+    }
+  }
+
   public boolean hasCache(String id) {
     return caches.containsKey(id);
   }
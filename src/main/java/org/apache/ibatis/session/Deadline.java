@@ -0,0 +1,113 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which the statements of a request must be done. Unlike a statement timeout, which every
+ * statement gets in full, a deadline is shared: each statement, nested select, lazy load and wait for a pooled
+ * connection only gets what is left of it.
+ * <p>
+ * A deadline is set on a {@link SqlSession}, or bound to the current thread for everything run in a block:
+ *
+ * <pre>
+ * try (Deadline.Scope scope = Deadline.after(200, TimeUnit.MILLISECONDS).bind()) {
+ *   mapper.selectBlog(id);
+ * }
+ * </pre>
+ *
+ * When both are set, the earliest wins.
+ */
+public final class Deadline {
+
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+  private final long nanoTime;
+
+  private Deadline(long nanoTime) {
+    this.nanoTime = nanoTime;
+  }
+
+  public static Deadline after(long duration, TimeUnit unit) {
+    return new Deadline(System.nanoTime() + unit.toNanos(duration));
+  }
+
+  /**
+   * @return the deadline bound to the current thread, null if none
+   */
+  public static Deadline current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * @return the earliest of the two deadlines, either of which may be null
+   */
+  public static Deadline earliest(Deadline deadline, Deadline other) {
+    if (deadline == null) {
+      return other;
+    }
+    if (other == null) {
+      return deadline;
+    }
+    return deadline.nanoTime - other.nanoTime <= 0 ? deadline : other;
+  }
+
+  /**
+   * @return the time left, 0 once the deadline has passed
+   */
+  public long remaining(TimeUnit unit) {
+    return unit.convert(Math.max(0L, nanoTime - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  public boolean isExpired() {
+    return nanoTime - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Binds this deadline to the current thread until the scope is closed. A deadline already bound that is earlier
+   * stays in force, so that a nested block cannot extend the budget of its caller.
+   */
+  public Scope bind() {
+    Deadline previous = CURRENT.get();
+    CURRENT.set(earliest(this, previous));
+    return new Scope(previous);
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline[remaining=" + remaining(TimeUnit.MILLISECONDS) + "ms]";
+  }
+
+  public static final class Scope implements AutoCloseable {
+
+    private final Deadline previous;
+
+    private Scope(Deadline previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+}
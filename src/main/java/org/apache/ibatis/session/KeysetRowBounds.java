@@ -0,0 +1,104 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Row bounds that page by key instead of by offset: the select is ordered by the key columns and each page starts
+ * after the key of the last row of the previous one, so the database seeks to it through an index instead of
+ * reading and skipping all the rows before it.
+ * <p>
+ * The key columns are result column labels and must together be unique, otherwise rows sharing a key across a page
+ * boundary are skipped. They replace any trailing <code>ORDER BY</code> of the select.
+ *
+ * <pre>
+ * KeysetRowBounds page = new KeysetRowBounds(20, "created_on", "id");
+ * List&lt;Post&gt; posts = session.selectList("selectPosts", null, page);
+ * Post last = posts.get(posts.size() - 1);
+ * posts = session.selectList("selectPosts", null, page.after(last.getCreatedOn(), last.getId()));
+ * </pre>
+ */
+public class KeysetRowBounds extends RowBounds {
+
+  private final List<String> keyColumns;
+  private final List<Object> lastKey;
+  private final boolean descending;
+
+  /**
+   * Bounds for the first page.
+   *
+   * @param limit the maximum number of rows of a page
+   * @param keyColumns the columns that order the rows
+   */
+  public KeysetRowBounds(int limit, String... keyColumns) {
+    this(limit, Arrays.asList(keyColumns), Collections.emptyList(), false);
+  }
+
+  private KeysetRowBounds(int limit, List<String> keyColumns, List<Object> lastKey, boolean descending) {
+    super(NO_ROW_OFFSET, limit);
+    if (keyColumns.isEmpty()) {
+      throw new IllegalArgumentException("Keyset pagination needs at least one key column.");
+    }
+    this.keyColumns = Collections.unmodifiableList(new ArrayList<>(keyColumns));
+    this.lastKey = lastKey;
+    this.descending = descending;
+  }
+
+  /**
+   * @param lastKey the values of the key columns in the last row of the previous page
+   * @return the bounds of the page that follows it
+   */
+  public KeysetRowBounds after(Object... lastKey) {
+    if (lastKey.length != keyColumns.size()) {
+      throw new IllegalArgumentException("Expected " + keyColumns.size() + " key values for " + keyColumns
+          + " but got " + lastKey.length + ".");
+    }
+    for (Object value : lastKey) {
+      if (value == null) {
+        throw new IllegalArgumentException("Key values of keyset pagination cannot be null.");
+      }
+    }
+    return new KeysetRowBounds(getLimit(), keyColumns, Collections.unmodifiableList(Arrays.asList(lastKey.clone())),
+        descending);
+  }
+
+  /**
+   * @return the same bounds with the rows ordered from the highest key down
+   */
+  public KeysetRowBounds descending() {
+    return new KeysetRowBounds(getLimit(), keyColumns, lastKey, true);
+  }
+
+  public List<String> getKeyColumns() {
+    return keyColumns;
+  }
+
+  /**
+   * @return the key after which the page starts, empty for the first page
+   */
+  public List<Object> getLastKey() {
+    return lastKey;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+}
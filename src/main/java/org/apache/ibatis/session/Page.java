@@ -0,0 +1,74 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+
+/**
+ * A page of the rows of a select, with the number of rows of the whole select.
+ *
+ * @param <E> the type of the rows
+ * @see SqlSession#selectPage(String, Object, RowBounds)
+ */
+public class Page<E> {
+
+  private final List<E> rows;
+  private final long total;
+  private final RowBounds rowBounds;
+
+  public Page(List<E> rows, long total, RowBounds rowBounds) {
+    this.rows = rows;
+    this.total = total;
+    this.rowBounds = rowBounds;
+  }
+
+  public List<E> getRows() {
+    return rows;
+  }
+
+  /**
+   * @return the number of rows of the select without bounds
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  public RowBounds getRowBounds() {
+    return rowBounds;
+  }
+
+  /**
+   * @return the number of pages of the select, for offset bounds with a limit
+   */
+  public long getPageCount() {
+    int limit = rowBounds.getLimit();
+    return limit == RowBounds.NO_ROW_LIMIT || limit <= 0 ? 1 : (total + limit - 1) / limit;
+  }
+
+  /**
+   * @return whether rows follow this page, for offset bounds
+   */
+  public boolean hasNext() {
+    return rowBounds.getOffset() + (long) rows.size() < total;
+  }
+
+  @Override
+  public String toString() {
+    return "Page[offset=" + rowBounds.getOffset() + ", limit=" + rowBounds.getLimit() + ", rows=" + rows.size()
+        + ", total=" + total + "]";
+  }
+
+}
@@ -143,6 +143,20 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Retrieve a page of mapped objects together with the number of rows of the whole select, counted by a statement
+   * derived from it. The count is skipped when the page itself shows where the rows end.
+   * @param <E> the returned page element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds of the page
+   * @return Page of mapped objects
+   * @throws UnsupportedOperationException if the session does not support pages
+   */
+  default <E> Page<E> selectPage(String statement, Object parameter, RowBounds rowBounds) {
+    throw new UnsupportedOperationException(getClass().getName() + " does not support selectPage");
+  }
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -261,6 +275,18 @@ public interface SqlSession extends Closeable {
    */
   void clearCache();
 
+  /**
+   * Sets the deadline of the statements of this session, including those of nested selects and lazy loads. Each
+   * statement gets the time left as query timeout and is cancelled when the deadline passes.
+   * @param deadline the deadline, null for none
+   * @throws UnsupportedOperationException if the deadline is not null and the session does not support deadlines
+   */
+  default void setDeadline(Deadline deadline) {
+    if (deadline != null) {
+      throw new UnsupportedOperationException(getClass().getName() + " does not support deadlines");
+    }
+  }
+
   /**
    * Retrieves current configuration.
    * @return Configuration
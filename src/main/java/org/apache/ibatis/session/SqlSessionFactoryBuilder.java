@@ -112,6 +112,7 @@ public class SqlSessionFactoryBuilder {
    * @return
    */
   public SqlSessionFactory build(Configuration config) {
+    config.loadCacheSnapshots();
     return new DefaultSqlSessionFactory(config);
   }
 
@@ -196,6 +196,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectCursor(statement, parameter, rowBounds);
   }
 
+  @Override
+  public <E> Page<E> selectPage(String statement, Object parameter, RowBounds rowBounds) {
+    return sqlSessionProxy.selectPage(statement, parameter, rowBounds);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return sqlSessionProxy.selectList(statement);
@@ -279,6 +284,15 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     sqlSession.clearCache();
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession == null) {
+      throw new SqlSessionException("Error:  Cannot set the deadline.  No managed session is started.");
+    }
+    sqlSession.setDeadline(deadline);
+  }
+
   @Override
   public void commit() {
     final SqlSession sqlSession = localSqlSession.get();
@@ -23,6 +23,9 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
@@ -31,10 +34,14 @@ import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.pagination.Paginator;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -131,6 +138,79 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public <E> Page<E> selectPage(String statement, Object parameter, RowBounds rowBounds) {
+    try {
+      MappedStatement ms = configuration.getMappedStatement(statement);
+      MappedStatement countStatement = Paginator.getCountStatement(ms);
+      // a count in a session of its own does not see the uncommitted changes of this one
+      Deadline deadline = executor.getDeadline();
+      AtomicBoolean countStarted = new AtomicBoolean();
+      Future<Long> concurrentTotal = configuration.isConcurrentPageCount() && !dirty
+          ? configuration.getAsyncExecutorService().submit(() -> countStarted.compareAndSet(false, true)
+              ? countInNewSession(countStatement, parameter, deadline) : null)
+          : null;
+      List<E> rows = executor.query(ms, wrapCollection(parameter), rowBounds, Executor.NO_RESULT_HANDLER);
+      long total;
+      // a count no pool thread has started yet is run here instead, the caller may itself hold a thread of the pool
+      if (concurrentTotal != null && !countStarted.compareAndSet(false, true)) {
+        total = getConcurrentTotal(concurrentTotal);
+      } else if (isLastPage(ms, rows, rowBounds)) {
+        cancel(concurrentTotal);
+        total = rowBounds.getOffset() + (long) rows.size();
+      } else {
+        cancel(concurrentTotal);
+        total = count(countStatement, parameter);
+      }
+      return new Page<>(rows, total, rowBounds);
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  /**
+   * A page that is neither full nor empty past the first row ends the select, so its rows give the total.
+   */
+  private boolean isLastPage(MappedStatement ms, List<?> rows, RowBounds rowBounds) {
+    return !(rowBounds instanceof KeysetRowBounds) && !ms.hasNestedResultMaps()
+        && rows.size() < rowBounds.getLimit() && (!rows.isEmpty() || rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET);
+  }
+
+  private long count(MappedStatement countStatement, Object parameter) throws SQLException {
+    List<Long> counts = executor.query(countStatement, wrapCollection(parameter), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    return counts.isEmpty() || counts.get(0) == null ? 0L : counts.get(0);
+  }
+
+  private long countInNewSession(MappedStatement countStatement, Object parameter, Deadline deadline) throws SQLException {
+    try (DefaultSqlSession session = (DefaultSqlSession) new DefaultSqlSessionFactory(configuration).openSession()) {
+      if (deadline != null) {
+        session.setDeadline(deadline);
+      }
+      return session.count(countStatement, parameter);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  private void cancel(Future<Long> concurrentTotal) {
+    if (concurrentTotal != null) {
+      concurrentTotal.cancel(false);
+    }
+  }
+
+  private long getConcurrentTotal(Future<Long> concurrentTotal) throws InterruptedException {
+    try {
+      return concurrentTotal.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw ExceptionFactory.wrapException("Error counting rows.  Cause: " + e.getCause(), e);
+    }
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return this.selectList(statement, null);
@@ -341,6 +421,11 @@ public class DefaultSqlSession implements SqlSession {
     executor.clearLocalCache();
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    executor.setDeadline(deadline);
+  }
+
   private <T> void registerCursor(Cursor<T> cursor) {
     if (cursorList == null) {
       cursorList = new ArrayList<>();
@@ -0,0 +1,124 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.annotations.Flush;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AsyncMapperTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setup() throws Exception {
+    DataSource dataSource = BaseDataTest.createUnpooledDataSource(BaseDataTest.BLOG_PROPERTIES);
+    BaseDataTest.runScript(dataSource, "org/apache/ibatis/binding/paramtest-schema.sql");
+    Environment environment = new Environment("Production", new JdbcTransactionFactory(), dataSource);
+    Configuration configuration = new Configuration(environment);
+    configuration.setAsyncExecutorThreads(2);
+    configuration.addMapper(Mapper.class);
+    configuration.addMapper(FlushMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void shouldRunEachFutureInACommittedSessionOfItsOwn() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      CompletableFuture<Integer> first = mapper.insert("async1", 1L);
+      CompletableFuture<Integer> second = mapper.insert("async2", 2L);
+      assertThat(first.join()).isEqualTo(1);
+      assertThat(second.join()).isEqualTo(1);
+      assertThat(mapper.selectSize("async2")).isEqualTo(2L);
+    }
+  }
+
+  @Test
+  void shouldCompleteWithTheDeclaredResultType() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      mapper.insert("async3", 3L).join();
+      assertThat(mapper.selectIds(3L).toCompletableFuture().join()).containsExactly("async3");
+      assertThat(mapper.selectSizeIfAny("none").join()).isEmpty();
+      mapper.insertVoid("async4", 4L).join();
+      assertThat(mapper.selectSize("async4")).isEqualTo(4L);
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyAndRollback() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      mapper.insert("async5", 5L).join();
+      CompletableFuture<Integer> duplicate = mapper.insert("async5", 6L);
+      assertThrows(CompletionException.class, duplicate::join);
+      assertThat(mapper.selectSize("async5")).isEqualTo(5L);
+    }
+  }
+
+  @Test
+  void shouldRejectFlushReturningAFuture() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      FlushMapper mapper = session.getMapper(FlushMapper.class);
+      assertThrows(BindingException.class, mapper::flush);
+    }
+  }
+
+  interface Mapper {
+    @Insert("insert into param_test (id, size) values(#{id}, #{size})")
+    CompletableFuture<Integer> insert(@Param("id") String id, @Param("size") long size);
+
+    @Insert("insert into param_test (id, size) values(#{id}, #{size})")
+    CompletableFuture<Void> insertVoid(@Param("id") String id, @Param("size") long size);
+
+    @Select("select size from param_test where id = #{id}")
+    long selectSize(@Param("id") String id);
+
+    @Select("select size from param_test where id = #{id}")
+    CompletableFuture<Optional<Long>> selectSizeIfAny(@Param("id") String id);
+
+    @Select("select id from param_test where size = #{size}")
+    CompletionStage<List<String>> selectIds(@Param("size") long size);
+  }
+
+  interface FlushMapper {
+    @Flush
+    CompletableFuture<Void> flush();
+  }
+
+}
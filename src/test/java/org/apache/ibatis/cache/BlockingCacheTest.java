@@ -0,0 +1,164 @@
+/**
+ *    Copyright 2009-2015 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  private static BlockingCache singleFlightCache() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setSingleFlight(true);
+    return cache;
+  }
+
+  @Test
+  void shouldHandValueOfSharedLoadToWaiters() throws Exception {
+    BlockingCache cache = singleFlightCache();
+    assertNull(cache.getObject("key"));
+    CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> cache.getObject("key"));
+    Thread.sleep(100);
+    assertFalse(waiter.isDone());
+    // the value can be put from another thread than the one that missed
+    CompletableFuture.runAsync(() -> cache.putObject("key", "value")).get(5, TimeUnit.SECONDS);
+    assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+    assertEquals(0, cache.getPendingCount());
+  }
+
+  @Test
+  void shouldLetWaiterLoadWhenLoadIsReleased() throws Exception {
+    BlockingCache cache = singleFlightCache();
+    assertNull(cache.getObject("key"));
+    CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> {
+      Object value = cache.getObject("key");
+      cache.putObject("key", "reloaded");
+      return value;
+    });
+    Thread.sleep(100);
+    cache.removeObject("key");
+    assertNull(waiter.get(5, TimeUnit.SECONDS));
+    assertEquals("reloaded", cache.getObject("key"));
+    assertEquals(0, cache.getPendingCount());
+  }
+
+  @Test
+  void shouldNotWaitForOwnLoad() {
+    BlockingCache cache = singleFlightCache();
+    assertNull(cache.getObject("key"));
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", "value");
+    assertEquals("value", cache.getObject("key"));
+  }
+
+  @Test
+  void shouldTimeOutAndDropStaleLoad() throws Exception {
+    BlockingCache cache = singleFlightCache();
+    cache.setTimeout(100);
+    assertNull(cache.getObject("key"));
+    CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> cache.getObject("key"));
+    try {
+      waiter.get(5, TimeUnit.SECONDS);
+      fail("Should have timed out");
+    } catch (Exception e) {
+      assertTrue(e.getCause() instanceof CacheException);
+    }
+    assertEquals(0, cache.getPendingCount());
+  }
+
+  @Test
+  void shouldStopWaitingWhenInterrupted() throws Exception {
+    BlockingCache cache = singleFlightCache();
+    assertNull(cache.getObject("key"));
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    AtomicReference<Boolean> interrupted = new AtomicReference<>();
+    Thread waiter = new Thread(() -> {
+      try {
+        cache.getObject("key");
+      } catch (CacheException e) {
+        failure.set(e);
+        interrupted.set(Thread.currentThread().isInterrupted());
+      }
+    });
+    waiter.start();
+    Thread.sleep(100);
+    waiter.interrupt();
+    waiter.join(5000);
+    assertNotNull(failure.get());
+    assertTrue(interrupted.get());
+  }
+
+  @Test
+  void shouldLetOneThreadAtATimeLoadAKey() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    AtomicInteger loading = new AtomicInteger();
+    AtomicInteger overlaps = new AtomicInteger();
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> loaders = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        loaders.add(threads.submit(() -> {
+          for (int j = 0; j < 2000; j++) {
+            assertNull(cache.getObject("key"));
+            if (loading.incrementAndGet() > 1) {
+              overlaps.incrementAndGet();
+            }
+            Thread.yield();
+            loading.decrementAndGet();
+            // releases the lock without putting a value, as a rollback does, so that every lookup misses
+            cache.removeObject("key");
+          }
+        }));
+      }
+      for (Future<?> loader : loaders) {
+        loader.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      threads.shutdownNow();
+    }
+    assertEquals(0, overlaps.get());
+    assertEquals(0, cache.getPendingCount());
+  }
+
+  @Test
+  void shouldRemoveReleasedLocks() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    for (int i = 0; i < 1000; i++) {
+      assertNull(cache.getObject(i));
+      if (i % 2 == 0) {
+        cache.putObject(i, i);
+      } else {
+        cache.removeObject(i);
+      }
+    }
+    assertEquals(0, cache.getPendingCount());
+    assertEquals(500, cache.getSize());
+  }
+
+}
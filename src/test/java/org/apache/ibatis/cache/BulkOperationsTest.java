@@ -0,0 +1,104 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class BulkOperationsTest {
+
+  @Test
+  void shouldCommitAllEntriesInOneStoreOperation() {
+    CountingCache store = new CountingCache();
+    Cache cache = new SynchronizedCache(new LoggingCache(new SerializedCache(new LruCache(store))));
+    TransactionalCache txCache = new TransactionalCache(cache);
+    for (int i = 0; i < 200; i++) {
+      assertNull(txCache.getObject(i));
+      txCache.putObject(i, "value" + i);
+    }
+    txCache.commit();
+    assertEquals(1, store.bulkPuts);
+    assertEquals(0, store.puts);
+    assertEquals(200, store.getSize());
+    assertEquals("value7", cache.getObject(7));
+  }
+
+  @Test
+  void shouldGetObjectsInOneStoreOperation() {
+    CountingCache store = new CountingCache();
+    Cache cache = new SynchronizedCache(new LoggingCache(new SerializedCache(new LruCache(store))));
+    Map<Object, Object> objects = new HashMap<>();
+    objects.put(1, "one");
+    objects.put(2, "two");
+    cache.putObjects(objects);
+    Map<Object, Object> found = cache.getObjects(Arrays.asList(1, 2, 3));
+    assertEquals(objects, found);
+    assertEquals(1, store.bulkGets);
+  }
+
+  @Test
+  void shouldStillEvictWhenPuttingObjects() {
+    LruCache cache = new LruCache(new PerpetualCache("default"));
+    cache.setSize(5);
+    Map<Object, Object> objects = new HashMap<>();
+    for (int i = 0; i < 8; i++) {
+      objects.put(i, i);
+    }
+    cache.putObjects(objects);
+    assertEquals(5, cache.getSize());
+  }
+
+  private static class CountingCache extends PerpetualCache {
+    private int puts;
+    private int bulkPuts;
+    private int bulkGets;
+
+    CountingCache() {
+      super("default");
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+      puts++;
+      super.putObject(key, value);
+    }
+
+    @Override
+    public void putObjects(Map<?, ?> objects) {
+      bulkPuts++;
+      super.putObjects(objects);
+    }
+
+    @Override
+    public Map<Object, Object> getObjects(Collection<?> keys) {
+      bulkGets++;
+      return super.getObjects(keys);
+    }
+  }
+
+}
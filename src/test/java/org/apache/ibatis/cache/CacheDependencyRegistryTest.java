@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2015 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class CacheDependencyRegistryTest {
+
+  private static Set<String> tables(String... tables) {
+    return new HashSet<>(Arrays.asList(tables));
+  }
+
+  @Test
+  void shouldInvalidateOnlyDependentEntriesAcrossCaches() {
+    CacheDependencyRegistry registry = new CacheDependencyRegistry();
+    Cache blogs = new PerpetualCache("blogs");
+    Cache authors = new PerpetualCache("authors");
+    registry.putObject(blogs, "blogWithAuthor", 1, tables("blog", "author"));
+    registry.putObject(blogs, "blog", 2, tables("blog"));
+    registry.putObject(authors, "author", 3, tables("author"));
+
+    registry.invalidate(tables("author"));
+
+    assertNull(blogs.getObject("blogWithAuthor"));
+    assertEquals(2, blogs.getObject("blog"));
+    assertNull(authors.getObject("author"));
+  }
+
+  @Test
+  void shouldInvalidateEntriesOfUnknownTablesOnAnyWrite() {
+    CacheDependencyRegistry registry = new CacheDependencyRegistry();
+    Cache cache = new PerpetualCache("default");
+    registry.putObject(cache, "procedure", 1, Collections.singleton(CacheDependencyRegistry.ANY_TABLE));
+    registry.putObject(cache, "blog", 2, tables("blog"));
+
+    registry.invalidate(tables("comment"));
+    assertNull(cache.getObject("procedure"));
+    assertEquals(2, cache.getObject("blog"));
+
+    registry.invalidate(Collections.singleton(CacheDependencyRegistry.ANY_TABLE));
+    assertNull(cache.getObject("blog"));
+  }
+
+  @Test
+  void shouldNotCommitEntriesReadBeforeTheTransactionWroteTheirTables() {
+    CacheDependencyRegistry registry = new CacheDependencyRegistry();
+    Cache cache = new PerpetualCache("default");
+    registry.putObject(cache, "blog", "committed", tables("blog"));
+    registry.putObject(cache, "author", "committed", tables("author"));
+
+    TransactionalCacheManager tcm = new TransactionalCacheManager(registry);
+    CacheKey blogKey = new CacheKey(new Object[] {"blog"});
+    tcm.putObject(cache, blogKey, "stale", tables("blog"));
+    tcm.invalidate(tables("blog"));
+    assertNull(tcm.getObject(cache, new CacheKey(new Object[] {"other blog"}), tables("blog")));
+    assertNull(cache.getObject("blog"), "invalidated on commit only");
+    tcm.commit();
+
+    assertNull(cache.getObject("blog"));
+    assertNull(cache.getObject(blogKey));
+    assertEquals("committed", cache.getObject("author"));
+  }
+
+  @Test
+  void shouldDiscardInvalidationOnRollback() {
+    CacheDependencyRegistry registry = new CacheDependencyRegistry();
+    Cache cache = new PerpetualCache("default");
+    registry.putObject(cache, "blog", "committed", tables("blog"));
+
+    TransactionalCacheManager tcm = new TransactionalCacheManager(registry);
+    tcm.invalidate(tables("blog"));
+    tcm.rollback();
+    tcm.commit();
+
+    assertEquals("committed", cache.getObject("blog"));
+  }
+
+  @Test
+  void shouldTellWhetherReadTablesDependOnWrittenTables() {
+    assertTrue(CacheDependencyRegistry.dependsOn(tables("blog", "author"), tables("author")));
+    assertFalse(CacheDependencyRegistry.dependsOn(tables("blog"), tables("author")));
+    assertTrue(CacheDependencyRegistry.dependsOn(tables(CacheDependencyRegistry.ANY_TABLE), tables("author")));
+    assertTrue(CacheDependencyRegistry.dependsOn(tables("blog"), tables(CacheDependencyRegistry.ANY_TABLE)));
+    assertFalse(CacheDependencyRegistry.dependsOn(tables("blog"), tables()));
+  }
+
+}
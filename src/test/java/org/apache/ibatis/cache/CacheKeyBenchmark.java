@@ -0,0 +1,113 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures building, hashing and comparing the keys {@code BaseExecutor.createCacheKey} builds.
+ * <p>
+ * Not run by the build, run it with {@code -prof gc} to also see the allocation rate:
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.apache.ibatis.cache.CacheKeyBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+  private static final String SQL = "select id, username, password, email, bio from author where id = ? and username = ?";
+
+  @Param({ "2", "10" })
+  private int parameters;
+
+  private Object[] values;
+  private CacheKey key;
+  private CacheKey equalKey;
+  private CacheKey otherKey;
+
+  @Setup
+  public void setup() {
+    values = new Object[parameters];
+    for (int i = 0; i < parameters; i++) {
+      values[i] = i % 2 == 0 ? Integer.valueOf(1000 + i) : "value" + i;
+    }
+    key = build();
+    equalKey = build();
+    otherKey = build();
+    otherKey.update("other");
+  }
+
+  @Benchmark
+  public CacheKey build() {
+    CacheKey cacheKey = new CacheKey(5 + values.length);
+    cacheKey.update("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor");
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update(SQL);
+    for (Object value : values) {
+      cacheKey.update(value);
+    }
+    cacheKey.update("development");
+    return cacheKey;
+  }
+
+  @Benchmark
+  public int buildAndHash() {
+    return build().hashCode();
+  }
+
+  @Benchmark
+  public boolean equalsHit() {
+    return key.equals(equalKey);
+  }
+
+  @Benchmark
+  public boolean equalsMiss() {
+    return key.equals(otherKey);
+  }
+
+  @Benchmark
+  public CacheKey cloneAndUpdate() throws CloneNotSupportedException {
+    CacheKey clone = key.clone();
+    clone.update("nested");
+    return clone;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CacheKeyBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
@@ -87,6 +87,32 @@ class CacheKeyTest {
     assertEquals(key1, key2);
   }
 
+  @Test
+  void shouldTestPresizedAndGrownKeysAreEqual() {
+    CacheKey key1 = new CacheKey(2);
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 20; i++) {
+      key1.update(i);
+      key2.update(Integer.valueOf(i));
+    }
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  void shouldNotShareUpdatesWithClone() throws Exception {
+    CacheKey key1 = new CacheKey(new Object[] { 1, "hello" });
+    CacheKey key2 = key1.clone();
+    assertEquals(key1, key2);
+    key2.update("world");
+    assertNotEquals(key1, key2);
+    key1.update("there");
+    assertNotEquals(key1, key2);
+    assertEquals(new CacheKey(new Object[] { 1, "hello", "world" }), key2);
+    assertEquals(new CacheKey(new Object[] { 1, "hello", "there" }), key1);
+  }
+
   @Test
   void serializationExceptionTest() {
     CacheKey cacheKey = new CacheKey();
@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.decorators.SnapshotCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CacheSnapshotTest {
+
+  @Test
+  void shouldPreloadTheMostRecentlyUsedEntries(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("users.snapshot");
+    Configuration configuration = newConfiguration(file, "id");
+    Cache cache = configuration.getCache("users");
+    cache.putObject(key("users.select", 1), Collections.singletonList(Collections.singletonMap("id", 1)));
+    cache.putObject(key("users.select", 2), Collections.singletonList(Collections.singletonMap("id", 2)));
+    cache.putObject("not a query key", Collections.emptyList());
+    configuration.loadCacheSnapshots();
+    CacheSnapshot snapshot = configuration.getCacheSnapshots().iterator().next();
+    snapshot.write();
+    snapshot.stop();
+    assertTrue(Files.size(file) > 0);
+
+    Configuration restarted = newConfiguration(file, "id");
+    restarted.loadCacheSnapshots();
+    Cache preloaded = restarted.getCache("users");
+    assertEquals(2, preloaded.getSize());
+    assertEquals(Collections.singletonList(Collections.singletonMap("id", 2)), preloaded.getObject(key("users.select", 2)));
+    restarted.getCacheSnapshots().iterator().next().stop();
+  }
+
+  @Test
+  void shouldDiscardEntriesOfChangedStatements(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("users.snapshot");
+    Configuration configuration = newConfiguration(file, "id");
+    configuration.getCache("users").putObject(key("users.select", 1), Collections.singletonList("row"));
+    configuration.loadCacheSnapshots();
+    CacheSnapshot snapshot = configuration.getCacheSnapshots().iterator().next();
+    snapshot.write();
+    snapshot.stop();
+
+    Configuration changed = newConfiguration(file, "user_id");
+    changed.loadCacheSnapshots();
+    assertEquals(0, changed.getCache("users").getSize());
+    changed.getCacheSnapshots().iterator().next().stop();
+  }
+
+  @Test
+  void shouldIgnoreACorruptSnapshot(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("users.snapshot");
+    Files.write(file, new byte[] {1, 2, 3});
+    Configuration configuration = newConfiguration(file, "id");
+    configuration.loadCacheSnapshots();
+    assertEquals(0, configuration.getCache("users").getSize());
+    configuration.getCacheSnapshots().iterator().next().stop();
+  }
+
+  @Test
+  void shouldTrackTheMostRecentlyUsedKeys() throws Exception {
+    CacheSnapshot snapshot = new CacheSnapshot("users");
+    snapshot.setSnapshotSize(2);
+    SnapshotCache cache = new SnapshotCache(new PerpetualCache("users"), snapshot);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, i);
+      Thread.sleep(2);
+    }
+    cache.getObject(3);
+    assertEquals(Arrays.asList(3, 9), new ArrayList<>(cache.getHotEntries().keySet()));
+    cache.removeObject(3);
+    assertEquals(Collections.singletonList(9), new ArrayList<>(cache.getHotEntries().keySet()));
+    cache.clear();
+    assertTrue(cache.getHotEntries().isEmpty());
+  }
+
+  private static Configuration newConfiguration(Path file, String column) {
+    Configuration configuration = new Configuration();
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "users.xml");
+    assistant.setCurrentNamespace("users");
+    Properties props = new Properties();
+    props.setProperty("snapshotFile", file.toString());
+    props.setProperty("snapshotInterval", "0");
+    assistant.useNewCache(null, null, null, null, true, false, props);
+    List<ResultMapping> mappings = Collections.singletonList(new ResultMapping.Builder(configuration, "id", column,
+        configuration.getTypeHandlerRegistry().getTypeHandler(Integer.class)).build());
+    ResultMap resultMap = new ResultMap.Builder(configuration, "users.userMap", HashMap.class, mappings).build();
+    configuration.addMappedStatement(new MappedStatement.Builder(configuration, "users.select",
+        new StaticSqlSource(configuration, "select * from users where id = ?"), SqlCommandType.SELECT)
+        .resultMaps(Collections.singletonList(resultMap)).build());
+    return configuration;
+  }
+
+  private static CacheKey key(String statementId, int id) {
+    return new CacheKey(new Object[] {statementId, 0, Integer.MAX_VALUE, "select * from users where id = ?", id, "test"});
+  }
+
+}
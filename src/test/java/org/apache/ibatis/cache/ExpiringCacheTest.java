@@ -0,0 +1,133 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  @Test
+  void shouldExpireEachEntryAfterItsTimeToLive() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(200);
+    cache.setJitter(0);
+    cache.putObject(0, 0);
+    Thread.sleep(120);
+    cache.putObject(1, 1);
+    Thread.sleep(120);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldShortenTimeToLiveByJitter() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(400);
+    cache.setJitter(0.5);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    Thread.sleep(100);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, cache.getObject(i));
+    }
+    Thread.sleep(400);
+    for (int i = 0; i < 100; i++) {
+      assertNull(cache.getObject(i));
+    }
+  }
+
+  @Test
+  void shouldClaimOneRefreshAheadOfExpiry() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(60000);
+    cache.setJitter(0);
+    cache.setRefreshAhead(60000);
+    cache.putObject(0, "old");
+    ExpiringCache.Refresh refresh;
+    try (ExpiringCache.RefreshClaim claim = ExpiringCache.openRefreshClaim()) {
+      assertEquals("old", cache.getObject(0));
+      refresh = claim.getRefresh();
+    }
+    assertNotNull(refresh);
+
+    assertNull(getRefresh(cache, 0), "a second hit must not claim a refresh in progress");
+
+    CountDownLatch done = new CountDownLatch(1);
+    refresh.submit(() -> {
+      cache.putObject(0, "new");
+      done.countDown();
+    });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertNotNull(getRefresh(cache, 0));
+  }
+
+  @Test
+  void shouldClaimRefreshAgainOnceReleased() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setRefreshAhead(TimeUnit.HOURS.toMillis(2));
+    cache.putObject(0, 0);
+    getRefresh(cache, 0).release();
+    assertNotNull(getRefresh(cache, 0));
+  }
+
+  @Test
+  void shouldNotClaimRefreshOutsideRefreshWindow() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setRefreshAhead(1000);
+    cache.putObject(0, 0);
+    assertNull(getRefresh(cache, 0));
+  }
+
+  @Test
+  void shouldNotClaimRefreshOutsideOfRefreshClaim() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setRefreshAhead(TimeUnit.HOURS.toMillis(2));
+    cache.putObject(0, 0);
+    cache.putObject(1, 1);
+    assertEquals(0, cache.getObject(0));
+    assertEquals(2, cache.getObjects(Arrays.asList(0, 1)).size());
+    assertNotNull(getRefresh(cache, 0), "reads outside of a claim must leave the refresh to claim");
+    assertNotNull(getRefresh(cache, 1));
+  }
+
+  @Test
+  void shouldUnwrapRemovedAndNullValues() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, null);
+    cache.putObject(1, 1);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.removeObject(1));
+    assertNull(cache.getObject(1));
+  }
+
+  private static ExpiringCache.Refresh getRefresh(ExpiringCache cache, Object key) {
+    try (ExpiringCache.RefreshClaim claim = ExpiringCache.openRefreshClaim()) {
+      cache.getObject(key);
+      return claim.getRefresh();
+    }
+  }
+
+}
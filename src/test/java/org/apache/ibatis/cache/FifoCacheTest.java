@@ -57,4 +57,16 @@ class FifoCacheTest {
     assertNull(cache.getObject(4));
   }
 
+  @Test
+  void shouldRemoveFirstItemsBeyondMemoryBudget() {
+    FifoCache cache = new FifoCache(new PerpetualCache("default"));
+    cache.setMaxBytes(3100);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, new byte[1000]);
+    }
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(2));
+    assertEquals(3, cache.getSize());
+  }
 }
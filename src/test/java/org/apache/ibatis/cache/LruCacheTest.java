@@ -57,4 +57,17 @@ class LruCacheTest {
     assertNull(cache.getObject(4));
   }
 
-}
\ No newline at end of file
+  @Test
+  void shouldRemoveLeastRecentlyUsedItemsBeyondMemoryBudget() {
+    LruCache cache = new LruCache(new PerpetualCache("default"));
+    cache.setMaxBytes(3100);
+    for (int i = 0; i < 3; i++) {
+      cache.putObject(i, new byte[1000]);
+    }
+    assertNotNull(cache.getObject(0));
+    cache.putObject(3, new byte[1000]);
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(0));
+    assertEquals(3, cache.getSize());
+  }
+}
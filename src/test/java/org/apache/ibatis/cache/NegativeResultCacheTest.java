@@ -0,0 +1,115 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.NegativeResultCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class NegativeResultCacheTest {
+
+  @Test
+  void shouldAnswerEmptyResultsWithoutStoringThemInTheDelegate() {
+    PerpetualCache delegate = new PerpetualCache("default");
+    NegativeResultCache cache = new NegativeResultCache(delegate);
+    cache.putObject("missing", Collections.emptyList());
+    cache.putObject("found", Collections.singletonList("row"));
+    assertEquals(Collections.emptyList(), cache.getObject("missing"));
+    assertEquals(Collections.singletonList("row"), cache.getObject("found"));
+    assertNull(delegate.getObject("missing"));
+    assertEquals(2, cache.getSize());
+  }
+
+  @Test
+  void shouldExpireEmptyResults() throws Exception {
+    NegativeResultCache cache = new NegativeResultCache(new PerpetualCache("default"));
+    cache.setNegativeTimeToLive(50);
+    cache.putObject("missing", Collections.emptyList());
+    assertNotNull(cache.getObject("missing"));
+    Thread.sleep(100);
+    assertNull(cache.getObject("missing"));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldBoundEmptyResultsByLeastRecentlyUsed() {
+    NegativeResultCache cache = new NegativeResultCache(new PerpetualCache("default"));
+    cache.setNegativeSize(2);
+    cache.putObject(1, Collections.emptyList());
+    cache.putObject(2, Collections.emptyList());
+    cache.getObject(1);
+    cache.putObject(3, Collections.emptyList());
+    assertNotNull(cache.getObject(1));
+    assertNull(cache.getObject(2));
+    assertNotNull(cache.getObject(3));
+  }
+
+  @Test
+  void shouldReplaceEmptyResultWithLaterRows() {
+    NegativeResultCache cache = new NegativeResultCache(new PerpetualCache("default"));
+    cache.putObject("key", Collections.emptyList());
+    cache.putObject("key", Collections.singletonList("row"));
+    assertEquals(Collections.singletonList("row"), cache.getObject("key"));
+    cache.removeObject("key");
+    assertNull(cache.getObject("key"));
+  }
+
+  @Test
+  void shouldRemoveEarlierRowsOfKeyFoundEmpty() throws Exception {
+    PerpetualCache delegate = new PerpetualCache("default");
+    NegativeResultCache cache = new NegativeResultCache(delegate);
+    cache.setNegativeTimeToLive(50);
+    cache.putObject("key", Collections.singletonList("row"));
+    cache.putObject("key", Collections.emptyList());
+    assertNull(delegate.getObject("key"));
+    Thread.sleep(100);
+    assertNull(cache.getObject("key"));
+  }
+
+  @Test
+  void shouldSplitBulkOperations() {
+    PerpetualCache delegate = new PerpetualCache("default");
+    NegativeResultCache cache = new NegativeResultCache(delegate);
+    Map<Object, Object> objects = new HashMap<>();
+    objects.put(1, Collections.emptyList());
+    objects.put(2, Collections.singletonList("row"));
+    cache.putObjects(objects);
+    assertEquals(1, delegate.getSize());
+    Map<Object, Object> found = cache.getObjects(Arrays.asList(1, 2, 3));
+    assertEquals(2, found.size());
+    assertTrue(((List<?>) found.get(1)).isEmpty());
+    cache.clear();
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldBeAddedByTheBuilderWithANegativeTimeToLive() {
+    Cache cache = new CacheBuilder("default").negativeTimeToLive(60000L).readWrite(true).build();
+    cache.putObject("missing", Collections.emptyList());
+    assertEquals(Collections.emptyList(), cache.getObject("missing"));
+    assertEquals(1, cache.getSize());
+  }
+
+}
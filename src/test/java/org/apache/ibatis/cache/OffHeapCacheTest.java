@@ -0,0 +1,103 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedObjects() throws Exception {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.initialize();
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject(0, value);
+    assertEquals(value, cache.getObject(0));
+    assertNotSame(value, cache.getObject(0));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictOldestEntriesWhenCapacityInBytesIsExceeded() throws Exception {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(4096);
+    cache.setSlabSize(1024);
+    cache.initialize();
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, new byte[100]);
+    }
+    assertNull(cache.getObject(0));
+    assertNotNull(cache.getObject(999));
+    assertTrue(cache.getSize() < 1000);
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() throws Exception {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.initialize();
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() throws Exception {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.initialize();
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldReloadEntriesFromMappedFile(@TempDir Path dir) throws Exception {
+    String file = dir.resolve("default.cache").toString();
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(64 * 1024);
+    cache.setSlabSize(16 * 1024);
+    cache.setFile(file);
+    cache.initialize();
+    for (int i = 0; i < 10; i++) {
+      cache.putObject("key" + i, "value" + i);
+    }
+    cache.removeObject("key3");
+
+    OffHeapCache restarted = new OffHeapCache("default");
+    restarted.setCapacity(64 * 1024);
+    restarted.setSlabSize(16 * 1024);
+    restarted.setFile(file);
+    restarted.initialize();
+    assertEquals(9, restarted.getSize());
+    assertEquals("value0", restarted.getObject("key0"));
+    assertEquals("value9", restarted.getObject("key9"));
+    assertNull(restarted.getObject("key3"));
+  }
+
+}
@@ -0,0 +1,93 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.StatisticsCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class StatisticsCacheTest {
+
+  @Test
+  void shouldCountHitsMissesPutsAndFlushes() {
+    StatisticsCache cache = new StatisticsCache(new PerpetualCache("default"));
+    CacheStatistics statistics = cache.getStatistics();
+    assertNull(cache.getObject(0));
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    assertEquals(0, cache.getObject(0));
+    cache.removeObject(0);
+    cache.clear();
+    assertEquals(2, statistics.getHits());
+    assertEquals(1, statistics.getMisses());
+    assertEquals(2.0 / 3, statistics.getHitRatio(), 0.0001);
+    assertEquals(1, statistics.getPuts());
+    assertEquals(1, statistics.getRemovals());
+    assertEquals(1, statistics.getFlushes());
+    assertEquals(0, statistics.getEvictions());
+    assertEquals(0, statistics.getSize());
+  }
+
+  @Test
+  void shouldEstimateEvictions() {
+    LruCache lru = new LruCache(new PerpetualCache("default"));
+    lru.setSize(5);
+    StatisticsCache cache = new StatisticsCache(lru);
+    for (int i = 0; i < 8; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(3, cache.getStatistics().getEvictions());
+    assertEquals(5, cache.getStatistics().getSize());
+  }
+
+  @Test
+  void shouldComputeLoadTimePercentiles() {
+    CacheStatistics statistics = new CacheStatistics("default");
+    assertEquals(0, statistics.getLoadTimeMedian());
+    for (int i = 1; i <= 100; i++) {
+      statistics.recordLoad(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    assertEquals(100, statistics.getLoads());
+    assertEquals(50.5, statistics.getAverageLoadTime(), 0.0001);
+    assertEquals(50, statistics.getLoadTimeMedian(), 50 * 0.07);
+    assertEquals(95, statistics.getLoadTime95thPercentile(), 95 * 0.07);
+    assertEquals(99, statistics.getLoadTime99thPercentile(), 99 * 0.07);
+    assertEquals(1, statistics.getLoadTimePercentile(0), 0.07);
+    assertThrows(IllegalArgumentException.class, () -> statistics.getLoadTimePercentile(101));
+    statistics.reset();
+    assertEquals(0, statistics.getLoads());
+    assertEquals(0, statistics.getLoadTime99thPercentile());
+  }
+
+  @Test
+  void shouldBeAddedByCacheBuilder() {
+    CacheStatistics statistics = new CacheStatistics("default");
+    Cache cache = new CacheBuilder("default").statistics(statistics).build();
+    cache.getObject(0);
+    cache.putObject(0, 0);
+    cache.getObject(0);
+    assertEquals(1, statistics.getHits());
+    assertEquals(1, statistics.getMisses());
+    assertEquals(1, statistics.getSize());
+  }
+
+}
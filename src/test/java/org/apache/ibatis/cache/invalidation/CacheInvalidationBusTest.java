@@ -0,0 +1,107 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CacheInvalidationBusTest {
+
+  @Test
+  void shouldDeliverToOtherLocalBusesOfTheChannel() {
+    LocalCacheInvalidationBus bus1 = new LocalCacheInvalidationBus("local-test");
+    LocalCacheInvalidationBus bus2 = new LocalCacheInvalidationBus("local-test");
+    LocalCacheInvalidationBus other = new LocalCacheInvalidationBus("other-test");
+    List<CacheInvalidation> received1 = new ArrayList<>();
+    List<CacheInvalidation> received2 = new ArrayList<>();
+    List<CacheInvalidation> receivedOther = new ArrayList<>();
+    try {
+      bus1.subscribe(received1::add);
+      bus2.subscribe(received2::add);
+      other.subscribe(receivedOther::add);
+      bus1.publish(CacheInvalidation.clear("ns"));
+      assertTrue(received1.isEmpty());
+      assertEquals(Collections.singletonList(CacheInvalidation.clear("ns")), received2);
+      assertTrue(receivedOther.isEmpty());
+    } finally {
+      bus1.close();
+      bus2.close();
+      other.close();
+    }
+  }
+
+  @Test
+  void shouldDeliverThroughSharedFile(@TempDir Path dir) {
+    Path file = dir.resolve("invalidations.log");
+    FileCacheInvalidationBus bus1 = new FileCacheInvalidationBus(file, 60000);
+    FileCacheInvalidationBus bus2 = new FileCacheInvalidationBus(file, 60000);
+    List<CacheInvalidation> received1 = new ArrayList<>();
+    List<CacheInvalidation> received2 = new ArrayList<>();
+    try {
+      bus1.subscribe(received1::add);
+      bus2.subscribe(received2::add);
+      CacheInvalidation invalidation = new CacheInvalidation(Arrays.asList("a.b", "c,d"), Arrays.asList("author", "t\tx"));
+      bus1.publish(invalidation);
+      bus1.publish(CacheInvalidation.tables(Collections.singleton("blog")));
+      bus1.poll();
+      bus2.poll();
+      bus2.poll();
+      assertTrue(received1.isEmpty());
+      assertEquals(Arrays.asList(invalidation, CacheInvalidation.tables(Collections.singleton("blog"))), received2);
+    } finally {
+      bus1.close();
+      bus2.close();
+    }
+  }
+
+  @Test
+  void shouldClearCacheOfOtherConfigurationOnCommit() {
+    Configuration node1 = new Configuration();
+    Configuration node2 = new Configuration();
+    node1.setCacheInvalidationBus(new LocalCacheInvalidationBus("configuration-test"));
+    node2.setCacheInvalidationBus(new LocalCacheInvalidationBus("configuration-test"));
+    try {
+      Cache cache1 = new PerpetualCache("ns");
+      Cache cache2 = new PerpetualCache("ns");
+      node1.addCache(cache1);
+      node2.addCache(cache2);
+      cache2.putObject(new CacheKey(new Object[] { 1 }), "value");
+
+      TransactionalCacheManager tcm = new TransactionalCacheManager(null, node1.getCacheInvalidationBus());
+      tcm.clear(cache1);
+      assertEquals(1, cache2.getSize());
+      tcm.commit();
+      assertEquals(0, cache2.getSize());
+    } finally {
+      node1.getCacheInvalidationBus().close();
+      node2.getCacheInvalidationBus().close();
+    }
+  }
+
+}
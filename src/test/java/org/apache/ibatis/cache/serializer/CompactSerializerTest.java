@@ -0,0 +1,94 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class CompactSerializerTest {
+
+  private final Serializer serializer = new CompactSerializer();
+
+  @Test
+  void shouldCopyRowsOfCommonTypes() {
+    Map<String, Object> row = new HashMap<>();
+    row.put("id", 1L);
+    row.put("count", -7);
+    row.put("name", "café");
+    row.put("amount", new BigDecimal("-12.345"));
+    row.put("big", new BigInteger("123456789012345678901234567890"));
+    row.put("created", new Timestamp(1234567890123L));
+    row.put("date", new Date(42L));
+    row.put("day", LocalDate.of(2019, 6, 1));
+    row.put("time", LocalDateTime.of(2019, 6, 1, 12, 30, 15, 999));
+    row.put("clock", LocalTime.of(23, 59));
+    row.put("ratio", 0.5d);
+    row.put("factor", 1.5f);
+    row.put("active", true);
+    row.put("missing", null);
+    List<Object> rows = new ArrayList<>(Arrays.asList(row, row));
+
+    Object copy = serializer.deserialize(serializer.serialize(rows));
+
+    assertEquals(rows, copy);
+    assertNotSame(rows, copy);
+  }
+
+  @Test
+  void shouldKeepMapOrder() {
+    Map<String, Object> row = new LinkedHashMap<>();
+    row.put("b", 1);
+    row.put("a", 2);
+
+    Object copy = serializer.deserialize(serializer.serialize(row));
+
+    assertEquals(LinkedHashMap.class, copy.getClass());
+    assertEquals(Arrays.asList("b", "a"), new ArrayList<>(((Map<?, ?>) copy).keySet()));
+  }
+
+  @Test
+  void shouldFallbackToJavaSerializationForBeans() {
+    Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+    List<Object> authors = new ArrayList<>(Arrays.asList(author));
+
+    Object copy = serializer.deserialize(serializer.serialize(authors));
+
+    assertEquals(authors, copy);
+  }
+
+  @Test
+  void shouldCopyNull() {
+    assertNull(serializer.deserialize(serializer.serialize(null)));
+  }
+
+}
@@ -0,0 +1,75 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CompressingSerializerTest {
+
+  private final Serializer serializer = new CompressingSerializer(new CompactSerializer());
+
+  @Test
+  void shouldShrinkRepetitiveValues() {
+    List<Object> rows = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      rows.add("row number " + i + " of a rather repetitive result");
+    }
+
+    byte[] bytes = serializer.serialize(rows);
+
+    assertTrue(bytes.length < new CompactSerializer().serialize(rows).length / 2);
+    assertEquals(rows, serializer.deserialize(bytes));
+  }
+
+  @Test
+  void shouldReuseBuffersForValuesOfDifferentSizes() {
+    List<Object> large = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      large.add("row number " + i + " of a rather repetitive result");
+    }
+    List<Object> small = new ArrayList<>(large.subList(0, 20));
+
+    byte[] largeBytes = serializer.serialize(large);
+    byte[] smallBytes = serializer.serialize(small);
+
+    assertEquals(small, serializer.deserialize(smallBytes));
+    assertEquals(large, serializer.deserialize(largeBytes));
+    assertEquals(small, serializer.deserialize(smallBytes));
+    assertArrayEquals(smallBytes, serializer.serialize(small));
+    assertEquals(large, new CompressingSerializer(new JavaSerializer()).deserialize(
+        new CompressingSerializer(new JavaSerializer()).serialize(large)));
+  }
+
+  @Test
+  void shouldCopyIncompressibleValues() {
+    byte[] value = new byte[10000];
+    new Random(42).nextBytes(value);
+
+    assertArrayEquals(value, (byte[]) serializer.deserialize(serializer.serialize(value)));
+  }
+
+  @Test
+  void shouldCopySmallValues() {
+    assertEquals("small", serializer.deserialize(serializer.serialize("small")));
+  }
+
+}
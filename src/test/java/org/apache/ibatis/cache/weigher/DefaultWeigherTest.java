@@ -0,0 +1,61 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.weigher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class DefaultWeigherTest {
+
+  private final Weigher weigher = new DefaultWeigher();
+
+  @Test
+  void shouldMeasureByteArraysExactly() {
+    assertEquals(1016, weigher.weigh(null, new byte[1000]));
+  }
+
+  @Test
+  void shouldGrowWithNumberOfRows() {
+    List<Author> small = authors(10);
+    List<Author> large = authors(10000);
+    long smallWeight = weigher.weigh(null, small);
+    long largeWeight = weigher.weigh(null, large);
+    assertTrue(smallWeight > 10 * 100);
+    assertTrue(largeWeight > 500 * smallWeight);
+  }
+
+  @Test
+  void shouldNotLoopOnCycles() {
+    List<Object> list = new ArrayList<>();
+    list.add(list);
+    assertTrue(weigher.weigh(null, list) > 0);
+  }
+
+  private List<Author> authors(int count) {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      authors.add(new Author(i, "user" + i, "password" + i, "user" + i + "@ibatis.apache.org", "bio of user " + i, Section.NEWS));
+    }
+    return authors;
+  }
+
+}
@@ -43,7 +43,7 @@ import org.junit.jupiter.api.Test;
 
 class BaseExecutorTest extends BaseDataTest {
   protected final Configuration config;
-  private static DataSource ds;
+  protected static DataSource ds;
 
   @BeforeAll
   static void setup() throws Exception {
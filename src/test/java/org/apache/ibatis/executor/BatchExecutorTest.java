@@ -15,7 +15,17 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
 
 class BatchExecutorTest extends BaseExecutorTest {
@@ -24,6 +34,124 @@ class BatchExecutorTest extends BaseExecutorTest {
   void dummy() {
   }
 
+  @Test
+  void shouldRunBatchesOnceFlushSizeIsReached() throws Exception {
+    config.setBatchFlushSize(2);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int id = 101; id <= 103; id++) {
+        executor.update(insertStatement, new Author(id, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).getUpdateCounts().length);
+      assertEquals(1, results.get(1).getUpdateCounts().length);
+      assertEquals(2, results.get(0).getParameterObjects().size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldKeepOnlyUpdateCountsWhenParametersAreNotRetained() throws Exception {
+    config.setBatchRetainParameters(false);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      executor.update(insertStatement, new Author(101, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(insertStatement, new Author(102, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(2, results.get(0).getUpdateCounts().length);
+      assertTrue(results.get(0).getParameterObjects().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldGroupInterleavedUpdatesBySql() throws Exception {
+    config.setBatchGroupBySql(true);
+    List<BatchResult> results = runInterleavedUpdates();
+    assertEquals(2, results.size());
+    assertEquals("insertAuthor", results.get(0).getMappedStatement().getId());
+    assertArrayEquals(new int[] { 1, 1 }, results.get(0).getUpdateCounts());
+    assertEquals("updateAuthor", results.get(1).getMappedStatement().getId());
+    assertArrayEquals(new int[] { 1, 1 }, results.get(1).getUpdateCounts());
+  }
+
+  @Test
+  void shouldRunGroupedBatchesInDeclaredOrder() throws Exception {
+    config.setBatchGroupBySql(true);
+    config.setBatchStatementOrder(Collections.singletonList("updateAuthor"));
+    List<BatchResult> results = runInterleavedUpdates();
+    assertEquals(2, results.size());
+    assertEquals("updateAuthor", results.get(0).getMappedStatement().getId());
+    assertEquals("insertAuthor", results.get(1).getMappedStatement().getId());
+  }
+
+  @Test
+  void shouldSendInsertsAsMultiRowInserts() throws Exception {
+    config.setBatchMultiRowInsert(true);
+    config.setBatchMultiRowInsertMaxParameters(12);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      for (int id = 201; id <= 203; id++) {
+        executor.update(insertStatement, new Author(id, "someone" + id, "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+      List<Author> authors = executor.query(selectStatement, 203, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals("someone203", authors.get(0).getUsername());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  private List<BatchResult> runInterleavedUpdates() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      executor.update(insertStatement, new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(updateStatement, new Author(101, "jim", "******", "jim@apache.org", null, Section.NEWS));
+      executor.update(insertStatement, new Author(202, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(updateStatement, new Author(102, "sally", "******", "sally@apache.org", null, Section.NEWS));
+      return executor.flushStatements();
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldMergeResultsOfAutoFlushedBatchesWhenParametersAreNotRetained() throws Exception {
+    config.setBatchFlushSize(2);
+    config.setBatchRetainParameters(false);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int id = 101; id <= 105; id++) {
+        executor.update(insertStatement, new Author(id, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(2, results.size());
+      assertArrayEquals(new int[] {4}, results.get(0).getUpdateCounts());
+      assertArrayEquals(new int[] {1}, results.get(1).getUpdateCounts());
+      assertTrue(results.get(0).getParameterObjects().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new BatchExecutor(config, transaction);
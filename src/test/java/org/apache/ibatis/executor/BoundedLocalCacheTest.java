@@ -0,0 +1,87 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedLocalCacheTest {
+
+  @Test
+  void shouldOnlyEvictWhenAsked() {
+    BoundedLocalCache cache = new BoundedLocalCache("LocalCache", 3, 0);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(5, cache.getSize());
+    assertEquals(0, cache.getObject(0));
+    cache.evictEntries();
+    assertEquals(3, cache.getSize());
+    assertEquals(0, cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNull(cache.getObject(2));
+    assertEquals(4, cache.getObject(4));
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntriesBeyondMemoryBudget() {
+    BoundedLocalCache cache = new BoundedLocalCache("LocalCache", 0, 3100);
+    for (int i = 0; i < 4; i++) {
+      cache.putObject(i, new byte[1000]);
+    }
+    assertNotNull(cache.getObject(0));
+    cache.evictEntries();
+    assertEquals(3, cache.getSize());
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    cache.putObject(4, new byte[1000]);
+    cache.evictEntries();
+    assertEquals(3, cache.getSize());
+  }
+
+  @Test
+  void shouldBoundEntriesPutTogether() {
+    BoundedLocalCache cache = new BoundedLocalCache("LocalCache", 2, 0);
+    Map<Object, Object> objects = new LinkedHashMap<>();
+    for (int i = 0; i < 4; i++) {
+      objects.put(i, i);
+    }
+    cache.putObjects(objects);
+    assertEquals(4, cache.getSize());
+    assertEquals(2, cache.getObjects(Arrays.asList(0, 1)).size());
+    cache.evictEntries();
+    assertEquals(2, cache.getSize());
+    assertEquals(Arrays.asList(0, 1), new ArrayList<>(cache.getObjects(Arrays.asList(0, 1, 2, 3)).keySet()));
+  }
+
+  @Test
+  void shouldClear() {
+    BoundedLocalCache cache = new BoundedLocalCache("LocalCache", 1, 1000);
+    cache.putObject(0, new byte[2000]);
+    cache.clear();
+    cache.putObject(1, new byte[10]);
+    cache.evictEntries();
+    assertEquals(1, cache.getSize());
+  }
+
+}
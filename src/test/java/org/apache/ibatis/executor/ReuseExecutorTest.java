@@ -15,7 +15,15 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
 
 class ReuseExecutorTest extends BaseExecutorTest {
@@ -30,6 +38,53 @@ class ReuseExecutorTest extends BaseExecutorTest {
     super.shouldFetchPostWithBlogWithCompositeKey();
   }
 
+  @Test
+  void shouldCloseLeastRecentlyUsedStatementsBeyondCacheSize() throws Exception {
+    config.setReuseStatementCacheSize(1);
+    ReuseExecutor executor = (ReuseExecutor) createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement selectOne = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      MappedStatement selectAll = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+      executor.query(selectOne, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.clearLocalCache();
+      executor.query(selectOne, 102, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectAll, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectOne, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      StatementCacheStatistics statistics = executor.getStatementCacheStatistics();
+      assertEquals(1, statistics.getHits());
+      assertEquals(3, statistics.getMisses());
+      assertEquals(2, statistics.getEvictions());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldCloseStatementOfCursorOnceTheCursorIsClosed() throws Exception {
+    config.setReuseStatementCacheSize(1);
+    ReuseExecutor executor = (ReuseExecutor) createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement selectAll = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+      MappedStatement selectOne = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      MappedStatement select99 = ExecutorTestHelper.createSelectAuthorWithIDof99MappedStatement(config);
+      Cursor<Object> cursor = executor.queryCursor(selectAll, null, RowBounds.DEFAULT);
+      Iterator<Object> authors = cursor.iterator();
+      assertNotNull(authors.next());
+      executor.query(selectOne, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      // neither the statement of the open cursor nor the one just prepared is closed
+      StatementCacheStatistics statistics = executor.getStatementCacheStatistics();
+      assertEquals(0, statistics.getEvictions());
+      assertNotNull(authors.next());
+      cursor.close();
+      executor.query(select99, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(2, statistics.getEvictions());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new ReuseExecutor(config,transaction);
@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.Deadline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StatementDeadlineTest {
+
+  @Mock
+  Statement statement;
+
+  @Test
+  void shouldRunAsIsWithoutDeadline() throws SQLException {
+    assertEquals(1, (int) StatementDeadline.execute(statement, null, () -> 1));
+    verifyZeroInteractions(statement);
+  }
+
+  @Test
+  void shouldShrinkQueryTimeoutToTimeLeftAndRestoreIt() throws SQLException {
+    when(statement.getQueryTimeout()).thenReturn(30);
+    assertEquals(1, (int) StatementDeadline.execute(statement, Deadline.after(1500, TimeUnit.MILLISECONDS), () -> 1));
+    verify(statement).setQueryTimeout(2);
+    verify(statement).setQueryTimeout(30);
+    verify(statement, never()).cancel();
+  }
+
+  @Test
+  void shouldKeepShorterQueryTimeout() throws SQLException {
+    when(statement.getQueryTimeout()).thenReturn(5);
+    StatementDeadline.execute(statement, Deadline.after(1, TimeUnit.MINUTES), () -> 1);
+    verify(statement, never()).setQueryTimeout(5);
+  }
+
+  @Test
+  void shouldNotRunPastDeadline() {
+    Deadline deadline = Deadline.after(0, TimeUnit.MILLISECONDS);
+    assertThrows(SQLTimeoutException.class, () -> StatementDeadline.execute(statement, deadline, () -> fail("ran")));
+  }
+
+  @Test
+  void shouldCancelStatementAtDeadline() throws SQLException {
+    CountDownLatch cancelled = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      cancelled.countDown();
+      return null;
+    }).when(statement).cancel();
+    assertThrows(SQLTimeoutException.class, () -> StatementDeadline.execute(statement, Deadline.after(50, TimeUnit.MILLISECONDS), () -> {
+      if (cancelled.await(10, TimeUnit.SECONDS)) {
+        throw new SQLException("Statement cancelled");
+      }
+      return 1;
+    }));
+  }
+
+  @Test
+  void shouldBindEarliestDeadlineToThread() {
+    Deadline outer = Deadline.after(1, TimeUnit.SECONDS);
+    try (Deadline.Scope outerScope = outer.bind()) {
+      try (Deadline.Scope innerScope = Deadline.after(1, TimeUnit.HOURS).bind()) {
+        assertSame(outer, Deadline.current());
+      }
+      assertSame(outer, Deadline.current());
+    }
+    assertNull(Deadline.current());
+  }
+
+}
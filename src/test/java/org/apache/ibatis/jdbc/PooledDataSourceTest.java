@@ -21,6 +21,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -28,6 +29,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.session.Deadline;
 import org.hsqldb.jdbc.JDBCConnection;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -75,6 +77,26 @@ class PooledDataSourceTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldStopWaitingForConnectionAtDeadline() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolMaximumCheckoutTime(20000);
+      ds.setPoolTimeToWait(10000);
+      Connection held = ds.getConnection();
+      long start = System.currentTimeMillis();
+      try (Deadline.Scope scope = Deadline.after(200, TimeUnit.MILLISECONDS).bind()) {
+        assertThrows(SQLTimeoutException.class, ds::getConnection);
+      }
+      assertTrue(System.currentTimeMillis() - start < 5000);
+      held.close();
+      assertNotNull(ds.getConnection());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
   @Test
   void shouldNotFailCallingToStringOverAnInvalidConnection() throws Exception {
     PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
@@ -18,7 +18,11 @@ package org.apache.ibatis.mapping;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -43,6 +47,21 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testTinyLfuEvictionReplacesPerpetualCacheWithoutSynchronization() {
+    Cache cache = new CacheBuilder("test").implementation(PerpetualCache.class).addDecorator(TinyLfuCache.class).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    Assertions.assertThat((Cache) unwrap(cache)).isInstanceOf(TinyLfuCache.class);
+  }
+
+  @Test
+  void testLruEvictionIsSynchronized() {
+    Cache cache = new CacheBuilder("test").implementation(PerpetualCache.class).addDecorator(LruCache.class).build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2009-2015 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TableNameParserTest {
+
+  @Test
+  void shouldFindTablesOfSelect() {
+    assertThat(TableNameParser.parse("SELECT a.id, b.name FROM author a, \"Blog\" AS b WHERE a.id = b.author_id ORDER BY a.id, b.id"))
+        .containsExactly("author", "blog");
+  }
+
+  @Test
+  void shouldFindJoinedTablesAndSubqueries() {
+    assertThat(TableNameParser.parse("select * from blog b left outer join dbo.[Post] p on p.blog_id = b.id"
+        + " inner join (select author_id from comment where id in (select comment_id from tag)) c on c.author_id = b.author_id,"
+        + " section s where s.id = (select max(id) from `mysql`.`section`)"))
+        .containsExactly("blog", "post", "comment", "tag", "section");
+  }
+
+  @Test
+  void shouldFindTablesOfWrites() {
+    assertThat(TableNameParser.parse("insert into author (id, username) values (?, ?)")).containsExactly("author");
+    assertThat(TableNameParser.parse("INSERT INTO post_archive SELECT * FROM post WHERE created_on < ?")).containsExactly("post_archive", "post");
+    assertThat(TableNameParser.parse("update only blog set title = ? where id = ?")).containsExactly("blog");
+    assertThat(TableNameParser.parse("DELETE FROM comment WHERE post_id = ?")).containsExactly("comment");
+    assertThat(TableNameParser.parse("MERGE INTO author a USING author_import i ON (a.id = i.id) WHEN MATCHED THEN UPDATE SET a.bio = i.bio"))
+        .contains("author", "author_import");
+  }
+
+  @Test
+  void shouldIgnoreLiteralsAndComments() {
+    assertThat(TableNameParser.parse("select 'from x' as s /* from y */ from blog -- join z\n where 1 = 1")).containsExactly("blog");
+  }
+
+  @Test
+  void shouldFindNoTableInProcedureCall() {
+    assertThat(TableNameParser.parse("{call next_id(?)}")).isEmpty();
+  }
+
+  @Test
+  void shouldNormalizeNames() {
+    assertThat(TableNameParser.normalize(" Main.\"Author\" ")).isEqualTo("author");
+    assertThat(TableNameParser.normalize("[dbo].[Blog]")).isEqualTo("blog");
+  }
+
+}
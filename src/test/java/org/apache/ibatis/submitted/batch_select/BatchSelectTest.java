@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_select;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchSelectTest {
+  private static SqlSessionFactory sqlSessionFactory;
+  private static final StatementCounter counter = new StatementCounter();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create an SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(counter);
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/batch_select/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounter() {
+    counter.statements.set(0);
+  }
+
+  @Test
+  void shouldLoadNestedSelectsOncePerMapping() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      assertEquals(3, blogs.size());
+      assertEquals("Author1", blogs.get(0).getAuthor().getName());
+      assertEquals("Author2", blogs.get(1).getAuthor().getName());
+      assertEquals("Author1", blogs.get(2).getAuthor().getName());
+      assertEquals(2, blogs.get(0).getPosts().size());
+      assertEquals("Post3", blogs.get(1).getPosts().get(0).getSubject());
+      assertTrue(blogs.get(2).getPosts().isEmpty());
+      assertEquals(3, counter.statements.get());
+    }
+  }
+
+  @Test
+  void shouldFallBackToOneSelectPerRowWithResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).getBlogs(context -> blogs.add(context.getResultObject()));
+      assertEquals(3, blogs.size());
+      assertEquals("Author2", blogs.get(1).getAuthor().getName());
+      assertEquals(2, blogs.get(0).getPosts().size());
+      assertTrue(blogs.get(2).getPosts().isEmpty());
+      // the author of the third blog comes from the local cache
+      assertEquals(6, counter.statements.get());
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  static class StatementCounter implements Interceptor {
+    private final AtomicInteger statements = new AtomicInteger();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      statements.incrementAndGet();
+      return invocation.proceed();
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_nested_select;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Many;
+import org.apache.ibatis.annotations.One;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select id, title, author_id from blog order by id")
+  @Options(nestedSelectParallelism = 3)
+  @Results({
+      @Result(property = "id", column = "id", id = true),
+      @Result(property = "author", column = "author_id", one = @One(select = "getAuthor")),
+      @Result(property = "posts", column = "id", many = @Many(select = "getPosts"))
+  })
+  List<Blog> getBlogs();
+
+  @Select("select id, name from author where id = #{id}")
+  Author getAuthor(int id);
+
+  @Select("select id, blog_id as blogId, subject from post where blog_id = #{id} order by id")
+  List<Post> getPosts(int id);
+
+}
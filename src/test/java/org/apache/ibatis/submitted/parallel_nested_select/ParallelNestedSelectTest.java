@@ -0,0 +1,103 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_nested_select;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelNestedSelectTest {
+  private static SqlSessionFactory sqlSessionFactory;
+  private static final NestedSelectRecorder recorder = new NestedSelectRecorder();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create an SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_nested_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(recorder);
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/parallel_nested_select/CreateDB.sql");
+  }
+
+  @Test
+  void shouldLoadNestedSelectsInParallel() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      assertEquals(3, blogs.size());
+      assertEquals("Author1", blogs.get(0).getAuthor().getName());
+      assertEquals("Author2", blogs.get(1).getAuthor().getName());
+      assertSame(blogs.get(0).getAuthor(), blogs.get(2).getAuthor());
+      assertEquals(2, blogs.get(0).getPosts().size());
+      assertEquals("Post3", blogs.get(1).getPosts().get(0).getSubject());
+      assertTrue(blogs.get(2).getPosts().isEmpty());
+      Set<Thread> threads = recorder.getThreads();
+      assertTrue(threads.size() > 1);
+      assertTrue(threads.contains(Thread.currentThread()));
+    }
+  }
+
+  /**
+   * Records the threads the nested selects run on. The first two nested selects wait for each other, so that the
+   * calling thread cannot run all of them before a pool thread starts.
+   */
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  static class NestedSelectRecorder implements Interceptor {
+    private final CountDownLatch firstNestedSelects = new CountDownLatch(2);
+    private final Set<Thread> threads = new HashSet<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      if (!((StatementHandler) invocation.getTarget()).getBoundSql().getSql().contains("from blog")) {
+        synchronized (threads) {
+          threads.add(Thread.currentThread());
+        }
+        firstNestedSelects.countDown();
+        firstNestedSelects.await(5, TimeUnit.SECONDS);
+      }
+      return invocation.proceed();
+    }
+
+    Set<Thread> getThreads() {
+      synchronized (threads) {
+        return new HashSet<>(threads);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,32 @@
+--
+--    Copyright 2009-2016 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table item if exists;
+
+create table item (
+  id int,
+  category int,
+  name varchar(20)
+);
+
+insert into item (id, category, name) values (1, 1, 'Item1');
+insert into item (id, category, name) values (2, 2, 'Item2');
+insert into item (id, category, name) values (3, 1, 'Item3');
+insert into item (id, category, name) values (4, 2, 'Item4');
+insert into item (id, category, name) values (5, 1, 'Item5');
+insert into item (id, category, name) values (6, 2, 'Item6');
+insert into item (id, category, name) values (7, 1, 'Item7');
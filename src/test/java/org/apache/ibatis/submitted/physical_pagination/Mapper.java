@@ -0,0 +1,38 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.physical_pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.Page;
+import org.apache.ibatis.session.RowBounds;
+
+public interface Mapper {
+
+  @Select("select id from item where category = #{category} order by id")
+  List<Integer> getIds(@Param("category") int category, RowBounds rowBounds);
+
+  @Select("select id from item order by id")
+  List<Integer> getAllIds(RowBounds rowBounds);
+
+  @Select("select id, name from item where category = #{category} order by id")
+  Page<Item> getItems(@Param("category") int category, RowBounds rowBounds);
+
+  List<Category> getCategories(RowBounds rowBounds);
+
+}
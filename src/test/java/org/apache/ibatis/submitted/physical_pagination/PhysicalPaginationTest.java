@@ -0,0 +1,199 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.physical_pagination;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.Page;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PhysicalPaginationTest {
+  private static SqlSessionFactory sqlSessionFactory;
+  private static final SqlRecorder recorder = new SqlRecorder();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create an SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/physical_pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(recorder);
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/physical_pagination/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void clearRecordedSql() {
+    recorder.sql.clear();
+  }
+
+  @Test
+  void shouldLimitRowsInTheDatabase() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(3, 4, 5), mapper.getAllIds(new RowBounds(2, 3)));
+      assertEquals(Arrays.asList(5, 7), mapper.getIds(1, new RowBounds(2, 5)));
+      assertTrue(recorder.sql.get(0).endsWith("LIMIT ? OFFSET ?"));
+    }
+  }
+
+  @Test
+  void shouldNotRewriteUnboundedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(7, sqlSession.getMapper(Mapper.class).getAllIds(RowBounds.DEFAULT).size());
+      assertEquals("select id from item order by id", recorder.sql.get(0));
+    }
+  }
+
+  @Test
+  void shouldNotLimitRowsOfNestedResultMapInTheDatabase() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Category> categories = sqlSession.getMapper(Mapper.class).getCategories(new RowBounds(0, 2));
+      assertEquals(2, categories.size());
+      assertEquals(4, categories.get(0).getItems().size());
+      assertFalse(recorder.sql.get(0).contains("LIMIT"));
+    }
+  }
+
+  @Test
+  void shouldPageByKey() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      KeysetRowBounds rowBounds = new KeysetRowBounds(2, "id");
+      assertEquals(Arrays.asList(2, 4), mapper.getIds(2, rowBounds));
+      assertEquals(Arrays.asList(6), mapper.getIds(2, rowBounds.after(4)));
+      assertEquals(Arrays.asList(7, 5), mapper.getIds(1, rowBounds.descending()));
+      assertEquals(Arrays.asList(3, 1), mapper.getIds(1, rowBounds.descending().after(5)));
+    }
+  }
+
+  @Test
+  void shouldPageByKeyWithoutDialect() {
+    sqlSessionFactory.getConfiguration().setPhysicalPagination(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(5, 6), mapper.getAllIds(new KeysetRowBounds(2, "id").after(4)));
+      assertFalse(recorder.sql.get(0).contains("LIMIT"));
+    } finally {
+      sqlSessionFactory.getConfiguration().setPhysicalPagination(true);
+    }
+  }
+
+  @Test
+  void shouldCountRowsOfPagedSelect() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Page<Item> page = sqlSession.getMapper(Mapper.class).getItems(1, new RowBounds(0, 2));
+      assertEquals(2, page.getRows().size());
+      assertEquals("Item3", page.getRows().get(1).getName());
+      assertEquals(4, page.getTotal());
+      assertEquals(2, page.getPageCount());
+      assertTrue(page.hasNext());
+      assertEquals("SELECT COUNT(*) from item where category = ?", recorder.sql.get(1));
+    }
+  }
+
+  @Test
+  void shouldNotCountRowsOfLastPage() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Page<Item> page = sqlSession.getMapper(Mapper.class).getItems(1, new RowBounds(2, 5));
+      assertEquals(2, page.getRows().size());
+      assertEquals(4, page.getTotal());
+      assertFalse(page.hasNext());
+      assertEquals(1, recorder.sql.size());
+    }
+  }
+
+  @Test
+  void shouldCountRowsConcurrently() {
+    sqlSessionFactory.getConfiguration().setConcurrentPageCount(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Page<Item> page = sqlSession.selectPage("org.apache.ibatis.submitted.physical_pagination.Mapper.getItems",
+          Collections.singletonMap("category", 2), new RowBounds(0, 3));
+      assertEquals(3, page.getRows().size());
+      assertEquals(3, page.getTotal());
+    } finally {
+      sqlSessionFactory.getConfiguration().setConcurrentPageCount(false);
+    }
+  }
+
+  @Test
+  void shouldCountRowsInlineWhenThePoolIsBusy() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    configuration.setConcurrentPageCount(true);
+    configuration.setAsyncExecutorService(pool);
+    try {
+      // the page is read on the only thread of the pool, which the count must not wait for
+      Future<Page<Item>> page = pool.submit(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          return sqlSession.getMapper(Mapper.class).getItems(1, new RowBounds(0, 2));
+        }
+      });
+      assertEquals(4, page.get(10, TimeUnit.SECONDS).getTotal());
+    } finally {
+      configuration.setConcurrentPageCount(false);
+      configuration.setAsyncExecutorService(null);
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldRejectIncompleteKeys() {
+    KeysetRowBounds rowBounds = new KeysetRowBounds(2, "category", "id");
+    assertThrows(IllegalArgumentException.class, () -> rowBounds.after(1));
+    assertThrows(IllegalArgumentException.class, () -> rowBounds.after(1, null));
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class SqlRecorder implements Interceptor {
+    private final List<String> sql = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      sql.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+  }
+
+}
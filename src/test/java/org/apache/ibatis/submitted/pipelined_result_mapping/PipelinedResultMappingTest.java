@@ -0,0 +1,131 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pipelined_result_mapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class PipelinedResultMappingTest {
+  private static final int ITEMS = 1000;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create an SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/pipelined_result_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/pipelined_result_mapping/CreateDB.sql");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= ITEMS; i++) {
+        Item item = new Item();
+        item.setId(i);
+        item.setName("Item" + i);
+        item.setQuantity(i % 3 == 0 ? null : i);
+        mapper.insertItem(item);
+      }
+      sqlSession.commit();
+    }
+  }
+
+  @AfterEach
+  void restoreThreads() {
+    sqlSessionFactory.getConfiguration().setResultMappingThreads(2);
+  }
+
+  @Test
+  void shouldMapRowsInOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = sqlSession.getMapper(Mapper.class).getItems();
+      assertEquals(ITEMS, items.size());
+      for (int i = 0; i < ITEMS; i++) {
+        Item item = items.get(i);
+        assertEquals(Integer.valueOf(i + 1), item.getId());
+        assertEquals("Item" + (i + 1), item.getName());
+        assertEquals((i + 1) % 3 == 0 ? null : Integer.valueOf(i + 1), item.getQuantity());
+      }
+    }
+  }
+
+  @Test
+  void shouldMapLikeTheCallingThread() {
+    List<String> pipelined;
+    List<Map<String, Object>> pipelinedMaps;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      pipelined = toStrings(sqlSession.getMapper(Mapper.class).getItems());
+      pipelinedMaps = sqlSession.getMapper(Mapper.class).getItemMaps();
+    }
+    sqlSessionFactory.getConfiguration().setResultMappingThreads(0);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(toStrings(sqlSession.getMapper(Mapper.class).getItems()), pipelined);
+      assertEquals(sqlSession.getMapper(Mapper.class).getItemMaps(), pipelinedMaps);
+    }
+  }
+
+  @Test
+  void shouldApplyRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = sqlSession.getMapper(Mapper.class).getItemPage(new RowBounds(10, 600));
+      assertEquals(600, items.size());
+      assertEquals(Integer.valueOf(11), items.get(0).getId());
+      assertEquals(Integer.valueOf(610), items.get(599).getId());
+    }
+  }
+
+  @Test
+  void shouldStopWhenTheResultHandlerStops() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).handleItems(context -> {
+        items.add(context.getResultObject());
+        if (context.getResultCount() == 300) {
+          context.stop();
+        }
+      });
+      assertEquals(300, items.size());
+      assertEquals(Integer.valueOf(300), items.get(299).getId());
+    }
+  }
+
+  private static List<String> toStrings(List<Item> items) {
+    List<String> strings = new ArrayList<>();
+    for (Item item : items) {
+      strings.add(item.toString());
+    }
+    return strings;
+  }
+
+}